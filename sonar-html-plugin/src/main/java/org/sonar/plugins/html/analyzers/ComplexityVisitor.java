@@ -49,7 +49,10 @@ public class ComplexityVisitor extends AbstractPageCheck {
       return;
     }
 
-    // count complexity in expressions
+    // count complexity in expressions, only reading the attributes of the tags that may contain some
+    if (!isUnifiedExpression(node.getCode())) {
+      return;
+    }
     for (Attribute a : node.getAttributes()) {
       if (isUnifiedExpression(a.getValue())) {
         String[] tokens = a.getValue().split("[ \t\n]");
@@ -20,8 +20,10 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.sonar.plugins.html.api.accessibility.AriaRole;
+import org.sonar.plugins.html.node.HtmlElement;
 import org.sonar.plugins.html.node.TagNode;
 
 public class HtmlConstants {
@@ -41,6 +43,85 @@ public class HtmlConstants {
   public static final String JSP_FILE_EXTENSIONS_PROP_KEY = "sonar.jsp.file.suffixes";
   public static final String JSP_FILE_EXTENSIONS_DEF_VALUE = ".jsp,.jspf,.jspx";
 
+  // ================ Analysis tuning properties ================
+  // Read from the scanner configuration only, they are not registered as plugin properties.
+
+  /**
+   * Number of files the sensor analyzes concurrently. Any value below 2 keeps the default
+   * sequential analysis.
+   */
+  public static final String ANALYSIS_THREADS_PROP_KEY = "sonar.html.analysis.threads";
+
+  /**
+   * When {@code true}, and the analysis is not run on several threads, the files are lexed on a dedicated thread while
+   * the rules run on the previous ones.
+   */
+  public static final String ANALYSIS_PIPELINE_PROP_KEY = "sonar.html.analysis.pipeline";
+
+  /**
+   * Percentage of the maximum heap size the analysis on several threads tries to stay under, by analyzing fewer files
+   * at the same time when the heap runs low. The usage is measured after the last garbage collection. Any value below 1
+   * or above 99 disables the limit, which is the default.
+   */
+  public static final String MAX_HEAP_USAGE_PROP_KEY = "sonar.html.analysis.maxHeapUsage";
+
+  /**
+   * When {@code true}, the time spent in each phase of the analysis and in each rule is measured and a ranked
+   * summary is logged at the end of the analysis.
+   */
+  public static final String ANALYSIS_PROFILING_PROP_KEY = "sonar.html.analysis.profiling";
+
+  /**
+   * Time in milliseconds the lexing and the scanning of a single file may take. The analysis of a file exceeding it is
+   * aborted and reported as an analysis error. Any value below 1 disables the limit, which is the default.
+   */
+  public static final String FILE_TIME_BUDGET_PROP_KEY = "sonar.html.analysis.fileTimeBudget";
+
+  /**
+   * Number of characters above which a file is analyzed in the
+   * {@link org.sonar.plugins.html.visitor.AnalysisTier#DEGRADED degraded} tier. Any value below 1 disables the threshold,
+   * which is the default.
+   */
+  public static final String DEGRADED_TIER_FILE_SIZE_PROP_KEY = "sonar.html.analysis.degradedTier.fileSize";
+
+  /**
+   * Length of the longest line above which a file is analyzed in the
+   * {@link org.sonar.plugins.html.visitor.AnalysisTier#DEGRADED degraded} tier, which catches minified markup. Any value below
+   * 1 disables the threshold, which is the default.
+   */
+  public static final String DEGRADED_TIER_LINE_LENGTH_PROP_KEY = "sonar.html.analysis.degradedTier.lineLength";
+
+  /**
+   * Number of nodes above which a file is analyzed in the
+   * {@link org.sonar.plugins.html.visitor.AnalysisTier#DEGRADED degraded} tier. Any value below 1 disables the threshold,
+   * which is the default.
+   */
+  public static final String DEGRADED_TIER_NODE_COUNT_PROP_KEY = "sonar.html.analysis.degradedTier.nodeCount";
+
+  /**
+   * When {@code true}, the files looking minified or generated are analyzed without the rules about the layout of the
+   * source and without duplication detection.
+   */
+  public static final String GENERATED_FILE_DETECTION_PROP_KEY = "sonar.html.analysis.generatedFileDetection";
+
+  /**
+   * Number of files read and decoded ahead of the file being analyzed, on background threads. Any value below 1
+   * disables the read-ahead, which is the default.
+   */
+  public static final String PREFETCH_FILES_PROP_KEY = "sonar.html.analysis.prefetch.files";
+
+  /**
+   * Number of characters of read-ahead content above which no more file is read ahead until the analysis catches up.
+   */
+  public static final String PREFETCH_MAX_CHARACTERS_PROP_KEY = "sonar.html.analysis.prefetch.maxCharacters";
+  public static final long PREFETCH_MAX_CHARACTERS_DEF_VALUE = 32_000_000L;
+
+  /**
+   * When {@code true}, the files are tokenized by a lexer working directly over their characters instead of the SSLR
+   * channels. Both produce the same nodes.
+   */
+  public static final String STATE_MACHINE_LEXER_PROP_KEY = "sonar.html.analysis.stateMachineLexer";
+
   /**
    * Extensions sonar-html treats as HTML on top of {@link #FILE_EXTENSIONS_PROP_KEY} and
    * {@link #JSP_FILE_EXTENSIONS_PROP_KEY} — server-side templating languages whose final
@@ -188,6 +269,10 @@ public class HtmlConstants {
     "xmp" // deprecated
   );
 
+  private static final Set<HtmlElement> KNOWN_HTML_ELEMENTS = KNOWN_HTML_TAGS.stream()
+    .map(HtmlElement::of)
+    .collect(Collectors.toCollection(() -> EnumSet.noneOf(HtmlElement.class)));
+
   // computed from https://github.com/jsx-eslint/eslint-plugin-jsx-a11y/blob/main/src/util/isInteractiveElement.js
   public static final Set<String> INTERACTIVE_ELEMENTS = Set.of("a", "audio", "button", "canvas", "datalist", "embed", "input", "menuitem", "option", "select", "summary",
     "td", "textarea", "th", "tr", "video");
@@ -261,7 +346,7 @@ public class HtmlConstants {
   }
 
   public static boolean hasKnownHTMLTag(TagNode element) {
-    return KNOWN_HTML_TAGS.stream().anyMatch(tag -> tag.equalsIgnoreCase(element.getNodeName()));
+    return KNOWN_HTML_ELEMENTS.contains(element.getElement());
   }
 
   public static boolean isReservedNode(TagNode element) {
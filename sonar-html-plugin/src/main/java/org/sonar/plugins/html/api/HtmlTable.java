@@ -24,6 +24,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
+import org.sonar.plugins.html.node.HtmlElement;
 import org.sonar.plugins.html.node.TagNode;
 
 /**
@@ -212,11 +213,11 @@ public class HtmlTable {
 
   /** True iff the node is a {@code <th>} element (case-insensitive). */
   public static boolean isTh(TagNode node) {
-    return "th".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.TH;
   }
 
   /** True iff the node is a {@code <td>} element (case-insensitive). */
   public static boolean isTd(TagNode node) {
-    return "td".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.TD;
   }
 }
@@ -21,6 +21,7 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.HtmlElement;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
 
@@ -557,11 +558,11 @@ public final class TemplateConditionalScopeTracker {
   }
 
   private static boolean isScriptTag(TagNode node) {
-    return "script".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.SCRIPT;
   }
 
   private static boolean isStyleTag(TagNode node) {
-    return "style".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.STYLE;
   }
 
   private static boolean hasConditionalAttribute(TagNode node) {
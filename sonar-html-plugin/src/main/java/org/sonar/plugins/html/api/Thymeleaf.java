@@ -52,7 +52,7 @@ public final class Thymeleaf {
    */
   public static boolean hasFragmentInsertion(TagNode node) {
     for (Attribute attribute : node.getAttributes()) {
-      if (FRAGMENT_INSERTION_ATTRIBUTES.contains(attribute.getName().toLowerCase(Locale.ROOT))) {
+      if (FRAGMENT_INSERTION_ATTRIBUTES.contains(attribute.getLowerCaseName())) {
         return true;
       }
     }
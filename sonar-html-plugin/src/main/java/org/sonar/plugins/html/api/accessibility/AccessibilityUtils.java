@@ -92,7 +92,7 @@ public class AccessibilityUtils {
   @CheckForNull
   private static String getBoundTextContent(TagNode element) {
     for (Attribute attribute : element.getAttributes()) {
-      if (TEXT_CONTENT_BINDINGS.contains(attribute.getName().toLowerCase(Locale.ROOT))
+      if (TEXT_CONTENT_BINDINGS.contains(attribute.getLowerCaseName())
         && !Thymeleaf.isEmptyValue(attribute.getValue())) {
         return attribute.getValue();
       }
@@ -18,6 +18,7 @@ package org.sonar.plugins.html.checks;
 
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.plugins.html.node.Attribute;
@@ -132,6 +133,11 @@ public abstract class AbstractPageCheck extends DefaultNodeVisitor {
     this.ruleKey = ruleKey;
   }
 
+  @CheckForNull
+  public final RuleKey getRuleKey() {
+    return ruleKey;
+  }
+
   public List<String> collectAnalysisWarnings() {
     return List.of();
   }
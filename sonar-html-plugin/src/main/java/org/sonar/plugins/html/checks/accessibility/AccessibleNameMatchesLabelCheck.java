@@ -34,7 +34,7 @@ public class AccessibleNameMatchesLabelCheck extends AbstractPageCheck {
   ));
 
   public void checkTagElement(TagNode node, String visibleLabel) {
-    String tagName = node.getNodeName().toLowerCase(Locale.ENGLISH);
+    String tagName = node.getLowerCaseNodeName();
 
     // Check if the element is interactive
     if (INTERACTIVE_TAGS.contains(tagName) || hasRoleButton(node)) {
@@ -25,12 +25,13 @@ import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 import static org.sonar.plugins.html.api.accessibility.AccessibilityUtils.hasNonEmptyTemplateTextAttribute;
 import static org.sonar.plugins.html.api.accessibility.AccessibilityUtils.isHiddenFromScreenReader;
 
 @Rule(key = "S6827")
-public class AnchorsHaveContentCheck extends AbstractPageCheck {
+public class AnchorsHaveContentCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final String MESSAGE = "Anchors must have content and the content must be accessible by a screen reader.";
 
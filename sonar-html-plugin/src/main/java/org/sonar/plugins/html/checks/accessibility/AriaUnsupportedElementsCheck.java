@@ -22,7 +22,6 @@ import org.sonar.plugins.html.node.TagNode;
 
 import static org.sonar.plugins.html.api.HtmlConstants.isReservedNode;
 
-import java.util.Locale;
 
 import org.sonar.check.Rule;
 
@@ -36,7 +35,7 @@ public class AriaUnsupportedElementsCheck extends AbstractPageCheck {
       return;
     }
     element.getAttributes().forEach(attr -> {
-      var attrName = attr.getName().toLowerCase(Locale.ROOT);
+      var attrName = attr.getLowerCaseName();
       if (AriaProperty.of(attrName) != null || attrName.equals("role")) {
         createViolation(
             element,
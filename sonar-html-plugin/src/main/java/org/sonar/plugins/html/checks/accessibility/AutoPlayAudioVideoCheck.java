@@ -20,14 +20,13 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
 
-import java.util.Locale;
 
 @Rule(key="S7929")
 public class AutoPlayAudioVideoCheck extends AbstractPageCheck {
 
   @Override
   public void startElement(TagNode element) {
-    String nodeName = element.getNodeName().toLowerCase(Locale.ENGLISH);
+    String nodeName = element.getLowerCaseNodeName();
 
     // Only check <audio> and <video> tags
     if (!nodeName.equals("audio") && !nodeName.equals("video")) {
@@ -27,9 +27,10 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.api.Helpers;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 @Rule(key = "S6842")
-public class NoNoninteractiveElementToInteractiveRoleCheck extends AbstractPageCheck {
+public class NoNoninteractiveElementToInteractiveRoleCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final String MESSAGE = "Non-interactive elements should not be assigned interactive roles.";
 
@@ -75,7 +76,7 @@ public class NoNoninteractiveElementToInteractiveRoleCheck extends AbstractPageC
   }
 
   private static boolean isRoleAllowedBySpec(TagNode node) {
-    var tag = node.getNodeName().toLowerCase(Locale.ROOT);
+    var tag = node.getLowerCaseNodeName();
     var role = node.getAttribute("role").toLowerCase(Locale.ROOT);
 
     if (ANY_ROLE_ELEMENTS.contains(tag)) {
@@ -111,7 +112,7 @@ public class NoNoninteractiveElementToInteractiveRoleCheck extends AbstractPageC
     if (parentRole != null && !parentRole.isEmpty()) {
       return parentRole.equalsIgnoreCase("list");
     }
-    return LIST_CONTAINER_ELEMENTS.contains(parent.getNodeName().toLowerCase(Locale.ROOT));
+    return LIST_CONTAINER_ELEMENTS.contains(parent.getLowerCaseNodeName());
   }
 
   // An img exposes an accessible name via non-empty alt, aria-label or aria-labelledby.
@@ -146,7 +147,7 @@ public class NoNoninteractiveElementToInteractiveRoleCheck extends AbstractPageC
 
   private static boolean containsLabelableControl(TagNode node) {
     for (var child : node.getChildren()) {
-      if (LABELABLE_CONTROLS.contains(child.getNodeName().toLowerCase(Locale.ROOT)) || containsLabelableControl(child)) {
+      if (LABELABLE_CONTROLS.contains(child.getLowerCaseNodeName()) || containsLabelableControl(child)) {
         return true;
       }
     }
@@ -85,7 +85,7 @@ public class PreferTagOverRoleCheck extends AbstractPageCheck {
       return;
     }
 
-    Element elementObj = Element.of(element.getNodeName().toLowerCase(Locale.ROOT));
+    Element elementObj = Element.of(element.getLowerCaseNodeName());
     if (elementObj != null && roleDef.getElements().contains(elementObj)) {
       return;
     }
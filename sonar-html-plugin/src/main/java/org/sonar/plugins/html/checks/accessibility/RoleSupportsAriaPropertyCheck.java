@@ -17,7 +17,6 @@
 package org.sonar.plugins.html.checks.accessibility;
 
 import java.util.Arrays;
-import java.util.Locale;
 import java.util.Objects;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.api.accessibility.Aria;
@@ -49,7 +48,7 @@ public class RoleSupportsAriaPropertyCheck extends AbstractPageCheck {
     }
 
     element.getAttributes().forEach(attr -> {
-      var normalizedAttr = attr.getName().toLowerCase(Locale.ROOT);
+      var normalizedAttr = attr.getLowerCaseName();
       var property = Aria.getProperty(AriaProperty.of(normalizedAttr));
       if (property != null && Arrays.stream(rolesProperties).noneMatch(role -> role.propertyIsAllowed(property.getName()))) {
         createViolation(
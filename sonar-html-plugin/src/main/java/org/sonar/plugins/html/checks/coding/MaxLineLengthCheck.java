@@ -16,20 +16,17 @@
  */
 package org.sonar.plugins.html.checks.coding;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.HandWrittenSourceVisitor;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
 
 @Rule(key = "MaxLineLengthCheck")
-public class MaxLineLengthCheck extends AbstractPageCheck {
+public class MaxLineLengthCheck extends AbstractPageCheck implements HandWrittenSourceVisitor {
 
   private static final int DEFAULT_MAX_LINE_LENGTH = 120;
 
@@ -43,13 +40,13 @@ public class MaxLineLengthCheck extends AbstractPageCheck {
 
   @Override
   public void endDocument() {
-    List<String> lines = readLines(getHtmlSourceCode().inputFile());
+    HtmlSourceCode sourceCode = getHtmlSourceCode();
 
-    for (int i = 0; i < lines.size(); i++) {
-      int length = lines.get(i).length();
-      if (length > maxLength && !ignoredLines.contains(i + 1)) {
+    for (int line = 1; line <= sourceCode.lineCount(); line++) {
+      int length = sourceCode.lineEndOffset(line) - sourceCode.lineStartOffset(line);
+      if (length > maxLength && !ignoredLines.contains(line)) {
         createViolation(
-            i + 1,
+            line,
             "Split this " + length + " characters long line (which is greater than " + maxLength + " authorized).");
       }
     }
@@ -67,12 +64,4 @@ public class MaxLineLengthCheck extends AbstractPageCheck {
     }
   }
 
-  private static List<String> readLines(InputFile file) {
-    try (BufferedReader br = new BufferedReader(new StringReader(file.contents()))) {
-      return br.lines().toList();
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to read " + file, e);
-    }
-  }
-
 }
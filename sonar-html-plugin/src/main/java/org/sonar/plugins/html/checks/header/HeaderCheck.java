@@ -16,9 +16,6 @@
  */
 package org.sonar.plugins.html.checks.header;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,6 +23,7 @@ import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
 
 @Rule(key = "HeaderCheck")
 public class HeaderCheck extends AbstractPageCheck {
@@ -64,28 +62,18 @@ public class HeaderCheck extends AbstractPageCheck {
 
   @Override
   public void startDocument(List<Node> nodes) {
-    String fileContent;
-    try {
-      fileContent = getHtmlSourceCode().inputFile().contents();
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
+    HtmlSourceCode sourceCode = getHtmlSourceCode();
     if (isRegularExpression) {
-      checkRegularExpression(fileContent);
+      checkRegularExpression(sourceCode.contents());
     } else {
       HeaderLinesProcessor processor = new HeaderLinesProcessor(expectedLines);
-      try (BufferedReader br = new BufferedReader(new StringReader(fileContent))) {
-        List<String> lines = br.lines().toList();
-        for (String line : lines) {
-          if (!processor.processLine(line)) {
-            break;
-          }
-        }
-        if (!processor.getResult()) {
-          createViolation(0, MESSAGE);
+      for (int line = 1; line <= sourceCode.lineCount(); line++) {
+        if (!processor.processLine(sourceCode.line(line))) {
+          break;
         }
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
+      }
+      if (!processor.getResult()) {
+        createViolation(0, MESSAGE);
       }
     }
   }
@@ -113,8 +113,7 @@ public class DeprecatedAttributesInHtml5Check extends AbstractPageCheck {
 
   @Override
   public void startElement(TagNode element) {
-    String nodeName = element.getNodeName();
-    String elementName = nodeName.toLowerCase(Locale.ROOT);
+    String elementName = element.getLowerCaseNodeName();
     Set<String> deprecatedAttributes = DEPRECATED.get(elementName);
     if (deprecatedAttributes != null) {
       List<Attribute> attributes = element.getAttributes();
@@ -127,7 +126,7 @@ public class DeprecatedAttributesInHtml5Check extends AbstractPageCheck {
   }
 
   private static boolean isDeprecated(TagNode element, Set<String> deprecatedAttributes, String attributeName, String attributeValue) {
-    String elementName = element.getNodeName().toLowerCase(Locale.ROOT);
+    String elementName = element.getLowerCaseNodeName();
     if ("img".equals(elementName) && "border".equals(attributeName)) {
       return !"0".equals(attributeValue);
     } else if ("script".equals(elementName) && "language".equals(attributeName)) {
@@ -34,9 +34,10 @@ import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Attribute;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 @Rule(key = "InputWithoutLabelCheck")
-public class InputWithoutLabelCheck extends AbstractPageCheck {
+public class InputWithoutLabelCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final Set<String> EXCLUDED_TYPES = Set.of("SUBMIT", "BUTTON", "IMAGE", "HIDDEN");
   private static final String ADD_ID_MESSAGE = "Add an \"id\" attribute to this input field and associate it with a label.";
@@ -147,7 +147,7 @@ public class LangAttributeCheck extends AbstractPageCheck {
   }
 
   private static boolean hasTextInAttributesToValidate(TagNode node) {
-    String nodeName = node.getNodeName().toLowerCase(Locale.ENGLISH);
+    String nodeName = node.getLowerCaseNodeName();
 
     // alt attribute
     if (("img".equals(nodeName) || "area".equals(nodeName) ||
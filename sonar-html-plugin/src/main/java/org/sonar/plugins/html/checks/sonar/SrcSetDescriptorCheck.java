@@ -25,6 +25,7 @@ import java.util.regex.Pattern;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.api.Helpers;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.HtmlElement;
 import org.sonar.plugins.html.node.TagNode;
 
 
@@ -113,11 +114,11 @@ public class SrcSetDescriptorCheck extends AbstractPageCheck {
   }
 
   private static boolean isImageNode(TagNode node) {
-    return "img".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.IMG;
   }
 
   private static boolean isSourceNode(TagNode node) {
-    return "source".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.SOURCE;
   }
 
   private static boolean isIdiomaticSingleSource(TagNode node) {
@@ -26,10 +26,12 @@ import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.api.HtmlTable;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.HtmlElement;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 @Rule(key = "TableHeaderHasIdOrScopeCheck")
-public class TableHeaderHasIdOrScopeCheck extends AbstractPageCheck {
+public class TableHeaderHasIdOrScopeCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final String MESSAGE = "Add either an 'id' or a 'scope' attribute to this <th> tag.";
 
@@ -101,23 +103,23 @@ public class TableHeaderHasIdOrScopeCheck extends AbstractPageCheck {
   }
 
   private static boolean isTrTag(TagNode node) {
-    return "tr".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.TR;
   }
 
   private static boolean isTableTag(TagNode node) {
-    return "table".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.TABLE;
   }
 
   private static boolean isTheadTag(TagNode node) {
-    return "thead".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.THEAD;
   }
 
   private static boolean isTbodyTag(TagNode node) {
-    return "tbody".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.TBODY;
   }
 
   private static boolean isTfootTag(TagNode node) {
-    return "tfoot".equalsIgnoreCase(node.getNodeName());
+    return node.getElement() == HtmlElement.TFOOT;
   }
 
   private void raiseIssueOnTableHeadersWithoutScopeOrId(Collection<TagNode> cells) {
@@ -33,11 +33,12 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 import javax.annotation.Nullable;
 
 @Rule(key = "S5260")
-public class TableHeaderReferenceCheck extends AbstractPageCheck {
+public class TableHeaderReferenceCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final Table.Cell NIL = new Table.Cell(null);
 
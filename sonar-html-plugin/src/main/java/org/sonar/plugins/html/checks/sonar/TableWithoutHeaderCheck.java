@@ -29,9 +29,10 @@ import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 @Rule(key = "S5256")
-public class TableWithoutHeaderCheck extends AbstractPageCheck {
+public class TableWithoutHeaderCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private final Set<TagNode> tablesWithRazorFragmentRendering = new HashSet<>();
 
@@ -20,9 +20,10 @@ import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 @Rule(key = "S4084")
-public class VideoTrackCheck extends AbstractPageCheck {
+public class VideoTrackCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final Set<String> ACCESSIBILITY_TRACK_KINDS = Set.of(
     "captions",
@@ -37,6 +37,7 @@ import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -54,7 +55,7 @@ import org.w3c.dom.NodeList;
  * the HTML plugin's DOM structure to W3C DOM.
  */
 @Rule(key = "S140")
-public class XPathTemplateCheck extends AbstractPageCheck {
+public class XPathTemplateCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final Logger LOG = LoggerFactory.getLogger(XPathTemplateCheck.class);
   private static final String DEFAULT_XPATH_EXPRESSION = "";
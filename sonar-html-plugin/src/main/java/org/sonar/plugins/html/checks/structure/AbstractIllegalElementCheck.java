@@ -23,6 +23,7 @@ import java.util.Locale;
 import java.util.Map;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.NameSymbol;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
 
@@ -63,8 +64,9 @@ public abstract class AbstractIllegalElementCheck extends AbstractPageCheck {
 
   @Override
   public void startElement(TagNode element) {
-    List<ConfiguredElement> localNameMatches = elementsByNormalizedName.get(normalizeName(element.getLocalName()));
-    List<ConfiguredElement> nodeNameMatches = elementsByNormalizedName.get(normalizeName(element.getNodeName()));
+    NameSymbol name = element.getNameSymbol();
+    List<ConfiguredElement> localNameMatches = elementsByNormalizedName.get(name.getLowerCaseLocalName());
+    List<ConfiguredElement> nodeNameMatches = elementsByNormalizedName.get(name.getLowerCaseName());
 
     if (localNameMatches == null && nodeNameMatches == null) {
       return;
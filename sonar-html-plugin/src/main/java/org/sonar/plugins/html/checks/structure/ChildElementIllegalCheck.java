@@ -20,6 +20,7 @@ import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 /**
  * Checker for illegal child elements.
@@ -27,7 +28,7 @@ import org.sonar.plugins.html.node.TagNode;
  * e.g. head cannnot have child element body.
  */
 @Rule(key = "ChildElementIllegalCheck")
-public class ChildElementIllegalCheck extends AbstractPageCheck {
+public class ChildElementIllegalCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final String DEFAULT_CHILD = "";
   private static final String DEFAULT_PARENT = "";
@@ -20,6 +20,7 @@ import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
 
 /**
  * Checker for required child elements.
@@ -27,7 +28,7 @@ import org.sonar.plugins.html.node.TagNode;
  * e.g. head must have child element title.
  */
 @Rule(key = "ChildElementRequiredCheck")
-public class ChildElementRequiredCheck extends AbstractPageCheck {
+public class ChildElementRequiredCheck extends AbstractPageCheck implements FullTierVisitor {
 
   private static final String DEFAULT_CHILD = "";
   private static final String DEFAULT_PARENT = "";
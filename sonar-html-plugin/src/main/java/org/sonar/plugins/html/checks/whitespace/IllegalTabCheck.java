@@ -16,29 +16,22 @@
  */
 package org.sonar.plugins.html.checks.whitespace;
 
-import java.io.IOException;
 import java.util.List;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.HandWrittenSourceVisitor;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
 
 @Rule(key = "IllegalTabCheck")
-public class IllegalTabCheck extends AbstractPageCheck {
+public class IllegalTabCheck extends AbstractPageCheck implements HandWrittenSourceVisitor {
 
   @Override
   public void startDocument(List<Node> nodes) {
-    String content;
-    try {
-      content = getHtmlSourceCode().inputFile().contents();
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
-    String[] lines = content.split("\\r?\\n");
-    for (int i = 0; i < lines.length; i++) {
-      if (lines[i].contains("\t")) {
-        createViolation(i + 1, "Replace all tab characters in this file by sequences of white-spaces.");
-        break;
-      }
+    HtmlSourceCode sourceCode = getHtmlSourceCode();
+    int firstTab = sourceCode.contents().indexOf('\t');
+    if (firstTab >= 0) {
+      createViolation(sourceCode.lineOf(firstTab), "Replace all tab characters in this file by sequences of white-spaces.");
     }
   }
 }
@@ -22,10 +22,11 @@ import org.sonar.plugins.html.node.CommentNode;
 import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.HandWrittenSourceVisitor;
 
 
 @Rule(key = "WhiteSpaceAroundCheck")
-public class WhiteSpaceAroundCheck extends AbstractPageCheck {
+public class WhiteSpaceAroundCheck extends AbstractPageCheck implements HandWrittenSourceVisitor {
 
   private void checkEndWhitespace(Node node, String code, String end) {
 
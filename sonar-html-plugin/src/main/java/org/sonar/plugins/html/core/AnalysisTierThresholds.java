@@ -0,0 +1,77 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonar.api.config.Configuration;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.AnalysisTier;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Limits above which a file is analyzed in the {@link AnalysisTier#DEGRADED degraded} tier. A limit below 1 is disabled,
+ * and all of them are unless configured, so that no file loses results without the project opting in.
+ */
+record AnalysisTierThresholds(long fileSize, int lineLength, int nodeCount) {
+
+  static AnalysisTierThresholds of(Configuration config) {
+    return new AnalysisTierThresholds(
+      config.getLong(HtmlConstants.DEGRADED_TIER_FILE_SIZE_PROP_KEY).orElse(0L),
+      config.getInt(HtmlConstants.DEGRADED_TIER_LINE_LENGTH_PROP_KEY).orElse(0),
+      config.getInt(HtmlConstants.DEGRADED_TIER_NODE_COUNT_PROP_KEY).orElse(0));
+  }
+
+  /**
+   * Reason why the content of the file calls for the degraded tier, or {@code null} when it is within the limits.
+   */
+  @Nullable
+  String exceededBySource(HtmlSourceCode sourceCode) {
+    int length = sourceCode.contents().length();
+    if (fileSize > 0 && length > fileSize) {
+      return length + " characters exceed the limit of " + fileSize;
+    }
+    if (lineLength > 0 && length > lineLength) {
+      int longestLine = longestLine(sourceCode);
+      if (longestLine > lineLength) {
+        return "a line of " + longestLine + " characters exceeds the limit of " + lineLength;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reason why the nodes of the file call for the degraded tier, or {@code null} when they are within the limits.
+   */
+  @Nullable
+  String exceededByNodes(List<Node> nodes) {
+    if (nodeCount > 0 && nodes.size() > nodeCount) {
+      return nodes.size() + " nodes exceed the limit of " + nodeCount;
+    }
+    return null;
+  }
+
+  private static int longestLine(HtmlSourceCode sourceCode) {
+    int longest = 0;
+    for (int line = 1; line <= sourceCode.lineCount(); line++) {
+      longest = Math.max(longest, sourceCode.lineEndOffset(line) - sourceCode.lineStartOffset(line));
+    }
+    return longest;
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.RuleProperty;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+
+/**
+ * Mints independent sets of the active checks.
+ * <p>
+ * Checks keep per-file state in their fields, so a check instance must never be visited by two threads at the same time.
+ * The instances created by {@link org.sonar.api.batch.rule.CheckFactory} act as prototypes: every new instance gets the
+ * values of the {@link RuleProperty} fields and the {@link RuleKey} of its prototype.
+ */
+final class CheckInstanceFactory {
+
+  private final List<AbstractPageCheck> prototypes = new ArrayList<>();
+  private final List<RuleKey> ruleKeys = new ArrayList<>();
+
+  CheckInstanceFactory(Checks<Object> checks) {
+    for (Object check : checks.all()) {
+      AbstractPageCheck pageCheck = (AbstractPageCheck) check;
+      RuleKey ruleKey = Objects.requireNonNull(checks.ruleKey(check));
+      pageCheck.setRuleKey(ruleKey);
+      prototypes.add(pageCheck);
+      ruleKeys.add(ruleKey);
+    }
+  }
+
+  /**
+   * The instances created by the {@link org.sonar.api.batch.rule.CheckFactory}.
+   */
+  List<AbstractPageCheck> activeChecks() {
+    return prototypes;
+  }
+
+  /**
+   * Creates a new instance of every active check, configured like the prototypes.
+   */
+  List<AbstractPageCheck> newInstances() {
+    List<AbstractPageCheck> instances = new ArrayList<>(prototypes.size());
+    for (int i = 0; i < prototypes.size(); i++) {
+      instances.add(copy(prototypes.get(i), ruleKeys.get(i)));
+    }
+    return instances;
+  }
+
+  /**
+   * Describes the active checks and the values of their parameters, in a stable order. Any change of the
+   * quality profile which can change the issues raised on a file changes the fingerprint.
+   */
+  String configurationFingerprint() {
+    List<String> descriptions = new ArrayList<>(prototypes.size());
+    for (int i = 0; i < prototypes.size(); i++) {
+      descriptions.add(describe(prototypes.get(i), ruleKeys.get(i)));
+    }
+    Collections.sort(descriptions);
+    return String.join("", descriptions);
+  }
+
+  private static String describe(AbstractPageCheck check, RuleKey ruleKey) {
+    StringBuilder description = new StringBuilder().append(ruleKey).append('{');
+    for (Field field : ruleProperties(check.getClass())) {
+      try {
+        description.append(field.getName()).append('=').append(field.get(check)).append(';');
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Unable to read the parameter " + field.getName() + " of the check " + check.getClass().getName(), e);
+      }
+    }
+    return description.append('}').toString();
+  }
+
+  private static AbstractPageCheck copy(AbstractPageCheck prototype, RuleKey ruleKey) {
+    Class<? extends AbstractPageCheck> checkClass = prototype.getClass();
+    try {
+      AbstractPageCheck instance = checkClass.getDeclaredConstructor().newInstance();
+      for (Field field : ruleProperties(checkClass)) {
+        field.set(instance, field.get(prototype));
+      }
+      instance.setRuleKey(ruleKey);
+      return instance;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create a new instance of the check " + checkClass.getName(), e);
+    }
+  }
+
+  /**
+   * The {@link RuleProperty} fields of a check class and of its superclasses, sorted by name.
+   */
+  private static List<Field> ruleProperties(Class<?> checkClass) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> type = checkClass; type != null; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        if (field.isAnnotationPresent(RuleProperty.class) && !Modifier.isStatic(field.getModifiers())) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+    fields.sort(Comparator.comparing(Field::getName));
+    return fields;
+  }
+
+}
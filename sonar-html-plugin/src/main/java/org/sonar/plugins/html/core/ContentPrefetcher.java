@@ -0,0 +1,128 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Iterates over the files to analyze, reading and decoding the next ones on background threads while the current one
+ * is analyzed, so that the analysis does not wait for slow file systems.
+ * <p>
+ * At most {@code maxFiles} files are read ahead, and no more file is read ahead as long as the content already read
+ * ahead reaches {@code maxCharacters}. As the size of a file is only known once read, the content held can exceed
+ * {@code maxCharacters} by the files being read at that time. The next file is always read ahead once the previous ones
+ * are handed over, whatever {@code maxCharacters}, so that a low limit slows the read-ahead down without stopping it.
+ * <p>
+ * A file which cannot be read is handed over as is: reading it again during the analysis reports the failure.
+ */
+final class ContentPrefetcher implements Iterator<HtmlSourceCode>, AutoCloseable {
+
+  private final Iterator<InputFile> inputFiles;
+  private final int maxFiles;
+  private final long maxCharacters;
+  private final ExecutorService executor;
+  private final Deque<Future<Prefetched>> pending = new ArrayDeque<>();
+  private final AtomicLong bufferedCharacters = new AtomicLong();
+
+  private ContentPrefetcher(Iterable<InputFile> inputFiles, int maxFiles, long maxCharacters) {
+    this.inputFiles = inputFiles.iterator();
+    this.maxFiles = maxFiles;
+    this.maxCharacters = maxCharacters;
+    this.executor = maxFiles > 0 ? Executors.newFixedThreadPool(maxFiles, HtmlSensor.daemonThreadFactory("sonar-html-prefetch-")) : null;
+  }
+
+  /**
+   * @param maxFiles number of files read ahead, a value below 1 disables the read-ahead
+   */
+  static ContentPrefetcher start(Iterable<InputFile> inputFiles, int maxFiles, long maxCharacters) {
+    ContentPrefetcher prefetcher = new ContentPrefetcher(inputFiles, maxFiles, maxCharacters);
+    prefetcher.fill();
+    return prefetcher;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !pending.isEmpty() || inputFiles.hasNext();
+  }
+
+  @Override
+  public HtmlSourceCode next() {
+    if (executor == null) {
+      return new HtmlSourceCode(inputFiles.next());
+    }
+    if (pending.isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    Prefetched prefetched = await(pending.poll());
+    bufferedCharacters.addAndGet(-prefetched.length());
+    fill();
+    return prefetched.sourceCode();
+  }
+
+  private void fill() {
+    if (executor == null) {
+      return;
+    }
+    while (pending.size() < maxFiles && (pending.isEmpty() || bufferedCharacters.get() < maxCharacters) && inputFiles.hasNext()) {
+      HtmlSourceCode sourceCode = new HtmlSourceCode(inputFiles.next());
+      pending.add(executor.submit(() -> read(sourceCode)));
+    }
+  }
+
+  private Prefetched read(HtmlSourceCode sourceCode) {
+    int length = 0;
+    try {
+      length = sourceCode.contents().length();
+    } catch (IllegalStateException e) {
+      // reported by the analysis of the file
+    }
+    bufferedCharacters.addAndGet(length);
+    return new Prefetched(sourceCode, length);
+  }
+
+  private static Prefetched await(Future<Prefetched> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading HTML files ahead", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unexpected failure while reading HTML files ahead", e.getCause());
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private record Prefetched(HtmlSourceCode sourceCode, int length) {
+  }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Outcome of the analysis of a single file: the lexed nodes together with the results recorded by the
+ * visitors, or the failure which interrupted the analysis. Results replayed from the analysis cache come without nodes.
+ */
+record FileAnalysis(HtmlSourceCode sourceCode, List<Node> nodes, @Nullable Exception failure, @Nullable String cacheKey, boolean fromCache) {
+
+  static FileAnalysis success(HtmlSourceCode sourceCode, List<Node> nodes, @Nullable String cacheKey) {
+    return new FileAnalysis(sourceCode, nodes, null, cacheKey, false);
+  }
+
+  static FileAnalysis failure(HtmlSourceCode sourceCode, Exception failure) {
+    return new FileAnalysis(sourceCode, List.of(), failure, null, false);
+  }
+
+  static FileAnalysis cached(HtmlSourceCode sourceCode, String cacheKey) {
+    return new FileAnalysis(sourceCode, List.of(), null, cacheKey, true);
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.plugins.html.jfr.FileAnalyzedEvent;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.lex.VueLexer;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.AnalysisProfiler;
+import org.sonar.plugins.html.visitor.AnalysisTier;
+import org.sonar.plugins.html.visitor.FileTimeBudget;
+import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Lexes and scans files. It does not touch the sensor context, so it can run on any thread, but as its scanner holds
+ * per-file state in its visitors, an instance must only be used by one thread at a time.
+ * <p>
+ * The analysis of a file is made of two stages, {@link #lex} and {@link #scan}. The first one does not use the scanner,
+ * so that it can run on another thread than the second one, one file ahead.
+ */
+final class FileAnalyzer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileAnalyzer.class);
+
+  private final HtmlAstScanner scanner;
+  private final AnalysisProfiler profiler;
+  private final long timeBudgetMillis;
+  private final AnalysisTierThresholds tierThresholds;
+  private final boolean generatedFileDetection;
+  private final boolean stateMachineLexer;
+
+  FileAnalyzer(HtmlAstScanner scanner, AnalysisProfiler profiler, long timeBudgetMillis, AnalysisTierThresholds tierThresholds,
+    boolean generatedFileDetection, boolean stateMachineLexer) {
+    this.scanner = scanner;
+    this.profiler = profiler;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.tierThresholds = tierThresholds;
+    this.generatedFileDetection = generatedFileDetection;
+    this.stateMachineLexer = stateMachineLexer;
+  }
+
+  FileAnalysis analyze(HtmlSourceCode sourceCode, @Nullable String cacheKey) {
+    return scan(lex(sourceCode, cacheKey));
+  }
+
+  /**
+   * First stage: reads the file, lexes it and chooses its analysis tier. Unlike {@link #scan}, it can be called
+   * by several threads at once.
+   */
+  LexedFile lex(HtmlSourceCode sourceCode, @Nullable String cacheKey) {
+    long start = System.nanoTime();
+    try {
+      // the file may have been read ahead, or to hash its content, so the read is measured by the source code itself
+      String contents = sourceCode.contents();
+      profiler.addPhase("read", sourceCode.readNanos());
+      if (generatedFileDetection) {
+        detectGenerated(sourceCode);
+      }
+
+      FileTimeBudget budget = FileTimeBudget.start(timeBudgetMillis);
+      PageLexer lexer = sourceCode.inputFile().filename().endsWith(".vue") ? new VueLexer(stateMachineLexer) : new PageLexer(stateMachineLexer);
+      // the nodes are regions of the content of the file rather than of a copy of it
+      List<Node> nodes = lexer.parse(contents, sourceCode.toString(), profiler, budget);
+      AnalysisTier tier = tier(sourceCode, nodes);
+      // the file may wait for the scan of the previous ones, which is not charged to its budget
+      budget.pause();
+      return new LexedFile(sourceCode, cacheKey, nodes, budget, tier, null, System.nanoTime() - start);
+    } catch (Exception e) {
+      return new LexedFile(sourceCode, cacheKey, List.of(), FileTimeBudget.UNLIMITED, AnalysisTier.FULL, e, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Second stage: runs the visitors over the nodes of the file.
+   */
+  FileAnalysis scan(LexedFile lexedFile) {
+    FileAnalyzedEvent event = new FileAnalyzedEvent();
+    event.begin();
+    lexedFile.budget().resume();
+    HtmlSourceCode sourceCode = lexedFile.sourceCode();
+    Exception failure = lexedFile.failure();
+    long size = 0;
+    if (failure == null) {
+      try {
+        size = sourceCode.contents().length();
+        long start = profiler.start();
+        scanner.scan(lexedFile.nodes(), sourceCode, lexedFile.budget(), lexedFile.tier());
+        profiler.stopPhase("scan", start);
+      } catch (Exception e) {
+        failure = e;
+      }
+    }
+    event.report(sourceCode.toString(), size, lexedFile.nodes().size(), lexedFile.tier().name(), failure != null, lexedFile.lexingNanos());
+    return failure == null
+      ? FileAnalysis.success(sourceCode, lexedFile.nodes(), lexedFile.cacheKey())
+      : FileAnalysis.failure(sourceCode, failure);
+  }
+
+  private static void detectGenerated(HtmlSourceCode sourceCode) {
+    String reason = GeneratedFileDetector.generatedReason(sourceCode);
+    if (reason != null) {
+      LOG.debug("Analyzing {} as a generated file, without layout rules and duplication detection: {}", sourceCode.inputFile(), reason);
+      sourceCode.setGenerated(true);
+    }
+  }
+
+  private AnalysisTier tier(HtmlSourceCode sourceCode, List<Node> nodes) {
+    String reason = tierThresholds.exceededBySource(sourceCode);
+    if (reason == null) {
+      reason = tierThresholds.exceededByNodes(nodes);
+    }
+    if (reason == null) {
+      LOG.debug("Analyzing {} in the full tier", sourceCode.inputFile());
+      return AnalysisTier.FULL;
+    }
+    LOG.info("Analyzing {} in the degraded tier, without highlighting, duplication and cross-node rules: {}", sourceCode.inputFile(), reason);
+    return AnalysisTier.DEGRADED;
+  }
+
+  /**
+   * Outcome of the {@link #lex} stage, to be passed to the {@link #scan} stage.
+   */
+  record LexedFile(HtmlSourceCode sourceCode, @Nullable String cacheKey, List<Node> nodes, FileTimeBudget budget, AnalysisTier tier,
+    @Nullable Exception failure, long lexingNanos) {
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Tells minified and generated markup, such as minified pages, the output of static site generators or exported
+ * documents, apart from hand-written sources, as the rules about the layout of the source and duplication detection
+ * only produce noise on it. The statistics it relies on only need the content already read for the analysis: the
+ * average line length, the share of whitespace and a generator meta tag.
+ */
+final class GeneratedFileDetector {
+
+  // below this size, statistics are not significant and the analysis is cheap anyway
+  private static final int MIN_CHARACTERS = 2048;
+  private static final int MAX_AVERAGE_LINE_LENGTH = 250;
+  // indented markup is rarely below 10% of whitespace, minified markup rarely above 5%
+  private static final double MIN_WHITESPACE_RATIO = 0.05;
+  private static final int SNIFF_CHARACTERS = 4096;
+
+  private static final Pattern GENERATOR_META_TAG = Pattern.compile(
+    "<meta\\s[^>]*\\bname\\s*=\\s*[\"']?generator\\b",
+    Pattern.CASE_INSENSITIVE);
+
+  private GeneratedFileDetector() {
+  }
+
+  /**
+   * Tells why the file looks minified or generated, {@code null} when it looks hand-written.
+   */
+  @CheckForNull
+  static String generatedReason(HtmlSourceCode sourceCode) {
+    String contents = sourceCode.contents();
+    int length = contents.length();
+    if (length < MIN_CHARACTERS) {
+      return null;
+    }
+    int averageLineLength = length / sourceCode.lineCount();
+    if (averageLineLength > MAX_AVERAGE_LINE_LENGTH) {
+      return "average line length of " + averageLineLength + " characters";
+    }
+    int whitespaces = 0;
+    for (int i = 0; i < length; i++) {
+      if (Character.isWhitespace(contents.charAt(i))) {
+        whitespaces++;
+      }
+    }
+    if (whitespaces < length * MIN_WHITESPACE_RATIO) {
+      return "whitespace ratio of " + (whitespaces * 100 / length) + "%";
+    }
+    if (GENERATOR_META_TAG.matcher(contents).region(0, Math.min(length, SNIFF_CHARACTERS)).find()) {
+      return "generator meta tag";
+    }
+    return null;
+  }
+
+}
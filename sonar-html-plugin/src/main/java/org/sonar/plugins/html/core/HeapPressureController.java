@@ -0,0 +1,147 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.function.LongSupplier;
+import javax.annotation.CheckForNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Limits the number of files analyzed at the same time by the parallel analysis when the heap runs low, before an
+ * {@link OutOfMemoryError} can occur.
+ * <p>
+ * A file may start when the occupancy of the tenured pool after the last garbage collection, plus the estimated
+ * footprint of the files being analyzed and of the file itself, stays below the limit. Otherwise the worker waits,
+ * polling the occupancy as a collection may free memory at any time. A file always starts when no other file is being
+ * analyzed, so that the analysis goes on.
+ * <p>
+ * The heap in use is not measured: it includes the garbage not collected yet, and climbs close to the maximum heap size
+ * before each collection.
+ */
+final class HeapPressureController {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HeapPressureController.class);
+
+  // Rough footprint of the nodes, attributes and visitor state built for each character of a file.
+  static final long BYTES_PER_CHARACTER = 30;
+  private static final long POLL_MILLIS = 50;
+  private static final long MEGABYTE = 1024L * 1024L;
+
+  private final LongSupplier usedHeap;
+  private final long heapLimit;
+  private long reservedBytes;
+  private int activeFiles;
+  private int throttles;
+
+  HeapPressureController(LongSupplier usedHeap, long heapLimit) {
+    this.usedHeap = usedHeap;
+    this.heapLimit = heapLimit;
+  }
+
+  /**
+   * Controller limiting the occupancy of the tenured pool to the given percentage of its maximum size, {@code null}
+   * when the percentage is not between 1 and 99, or when the garbage collector has no tenured pool of a defined size.
+   */
+  @CheckForNull
+  static HeapPressureController forMaxHeapUsage(int percent) {
+    MemoryPoolMXBean tenuredPool = tenuredPool();
+    if (percent <= 0 || percent >= 100 || tenuredPool == null) {
+      return null;
+    }
+    long maxSize = tenuredPool.getUsage().getMax();
+    if (maxSize <= 0) {
+      maxSize = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+    }
+    if (maxSize <= 0) {
+      return null;
+    }
+    return new HeapPressureController(() -> usedAfterLastCollection(tenuredPool), maxSize / 100 * percent);
+  }
+
+  /**
+   * The heap pool holding the long-lived objects: unlike the eden and survivor pools, it supports a usage threshold.
+   */
+  @CheckForNull
+  private static MemoryPoolMXBean tenuredPool() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported()) {
+        return pool;
+      }
+    }
+    return null;
+  }
+
+  private static long usedAfterLastCollection(MemoryPoolMXBean pool) {
+    MemoryUsage usage = pool.getCollectionUsage();
+    return usage == null ? 0L : usage.getUsed();
+  }
+
+  /**
+   * Estimated footprint of the analysis of the file, from its size on the file system, counting a character per byte,
+   * 0 when the size is unknown. The file is not read here, otherwise its content would take memory before the analysis
+   * of the file can be throttled.
+   */
+  static long estimate(HtmlSourceCode sourceCode) {
+    return LargestFirstOrder.size(sourceCode.inputFile()) * BYTES_PER_CHARACTER;
+  }
+
+  /**
+   * Waits until a file with the given estimated footprint can be analyzed. Each call must be followed by a call to
+   * {@link #release} with the same estimate once the analysis of the file is over.
+   */
+  synchronized void acquire(long estimatedBytes) throws InterruptedException {
+    boolean throttled = false;
+    while (activeFiles > 0 && usedHeap.getAsLong() + reservedBytes + estimatedBytes > heapLimit) {
+      if (!throttled) {
+        throttled = true;
+        throttles++;
+        logThrottling(estimatedBytes);
+      }
+      wait(POLL_MILLIS);
+    }
+    activeFiles++;
+    reservedBytes += estimatedBytes;
+  }
+
+  synchronized void release(long estimatedBytes) {
+    activeFiles--;
+    reservedBytes -= estimatedBytes;
+    notifyAll();
+  }
+
+  synchronized int throttles() {
+    return throttles;
+  }
+
+  private void logThrottling(long estimatedBytes) {
+    String message = "Throttling the analysis of HTML files because of heap pressure: {} MB used, {} MB reserved by {} files being analyzed, "
+      + "{} MB needed, limit of {} MB";
+    Object[] arguments = {usedHeap.getAsLong() / MEGABYTE, reservedBytes / MEGABYTE, activeFiles, estimatedBytes / MEGABYTE, heapLimit / MEGABYTE};
+    if (throttles == 1) {
+      LOG.info(message, arguments);
+    } else {
+      LOG.debug(message, arguments);
+    }
+  }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.issue.IssueResolution;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.checks.PreciseHtmlIssue;
+import org.sonar.plugins.html.visitor.HtmlIssueResolution;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlTokens;
+
+/**
+ * Keeps the results of the analysis of every file in the SonarQube analysis cache, and replays them on the next
+ * analysis of a file whose content did not change, as long as the configuration of the active rules did not change either.
+ * <p>
+ * The cache key is made of the hash of the file content and the hash of the rules configuration, so a cache
+ * entry can only be found when both are unchanged.
+ * <p>
+ * {@link #key} and {@link #read} are called by the threads analyzing the files, as computing the key reads the file,
+ * while {@link #write} is only called by the sensor thread.
+ */
+final class HtmlAnalysisCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HtmlAnalysisCache.class);
+
+  // to be incremented whenever the serialized form changes
+  private static final int FORMAT_VERSION = 1;
+  private static final String KEY_PREFIX = "sonar-html:analysis:" + FORMAT_VERSION + ":";
+
+  private final SensorContext context;
+  private final String configurationHash;
+
+  HtmlAnalysisCache(SensorContext context, String configurationFingerprint) {
+    this.context = context;
+    this.configurationHash = hash(configurationFingerprint.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Key of the cache entry of the file in its current state, {@code null} when the cache is disabled
+   * or when the file cannot be read (the analysis then reports the failure).
+   */
+  @CheckForNull
+  String key(HtmlSourceCode sourceCode) {
+    if (!context.isCacheEnabled()) {
+      return null;
+    }
+    InputFile inputFile = sourceCode.inputFile();
+    try {
+      return KEY_PREFIX + configurationHash + ":" + contentHash(sourceCode) + ":" + inputFile.key();
+    } catch (IllegalStateException e) {
+      LOG.debug("Unable to compute the content hash of {}", inputFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * The results of the previous analysis stored under {@code key}, {@code null} when there are none.
+   */
+  @CheckForNull
+  FileAnalysis read(InputFile inputFile, @Nullable String key) {
+    if (key == null || !context.previousCache().contains(key)) {
+      return null;
+    }
+    try (InputStream in = context.previousCache().read(key)) {
+      HtmlSourceCode sourceCode = deserialize(inputFile, in.readAllBytes());
+      LOG.debug("Replaying the results of the previous analysis of {}", inputFile);
+      return FileAnalysis.cached(sourceCode, key);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to read the cached results of {}", inputFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * Stores the results of the analysis for the next analysis: results replayed from the cache are copied over,
+   * fresh results are serialized.
+   */
+  void write(FileAnalysis analysis) {
+    String key = analysis.cacheKey();
+    if (key == null || analysis.failure() != null) {
+      return;
+    }
+    try {
+      if (analysis.fromCache()) {
+        context.nextCache().copyFromPrevious(key);
+      } else {
+        context.nextCache().write(key, serialize(analysis.sourceCode()));
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to cache the results of {}", analysis.sourceCode().inputFile(), e);
+    }
+  }
+
+  private static String contentHash(HtmlSourceCode sourceCode) {
+    MessageDigest digest = newDigest();
+    // the language drives how the content is analyzed
+    digest.update((sourceCode.inputFile().language() + ":").getBytes(StandardCharsets.UTF_8));
+    // hashes the decoded content the analysis reads, rather than reading the file once more
+    digest.update(sourceCode.contents().getBytes(StandardCharsets.UTF_8));
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static String hash(byte[] bytes) {
+    return HexFormat.of().formatHex(newDigest().digest(bytes));
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not supported by the JVM", e);
+    }
+  }
+
+  static byte[] serialize(HtmlSourceCode sourceCode) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      Map<Metric<Integer>, Integer> measures = sourceCode.getMeasures();
+      out.writeInt(measures.size());
+      for (Map.Entry<Metric<Integer>, Integer> measure : measures.entrySet()) {
+        writeString(out, measure.getKey().key());
+        out.writeInt(measure.getValue());
+      }
+
+      List<HtmlIssue> issues = sourceCode.getIssues();
+      out.writeInt(issues.size());
+      for (HtmlIssue issue : issues) {
+        writeIssue(out, issue);
+      }
+
+      writeLines(out, sourceCode.getDetailedLinesOfCode());
+
+      HtmlTokens tokens = sourceCode.getTokens();
+      out.writeBoolean(tokens != null);
+      if (tokens != null) {
+        writeTokens(out, tokens);
+      }
+
+      writeLines(out, sourceCode.getNoSonarLines());
+
+      List<HtmlIssueResolution> issueResolutions = sourceCode.getIssueResolutions();
+      out.writeInt(issueResolutions.size());
+      for (HtmlIssueResolution issueResolution : issueResolutions) {
+        writeIssueResolution(out, issueResolution);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static HtmlSourceCode deserialize(InputFile inputFile, byte[] data) throws IOException {
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      int measures = in.readInt();
+      for (int i = 0; i < measures; i++) {
+        sourceCode.addMeasure(metric(readString(in)), in.readInt());
+      }
+
+      int issues = in.readInt();
+      for (int i = 0; i < issues; i++) {
+        sourceCode.addIssue(readIssue(in));
+      }
+
+      sourceCode.setDetailedLinesOfCode(readLines(in));
+
+      if (in.readBoolean()) {
+        sourceCode.setTokens(readTokens(in));
+      }
+
+      sourceCode.setNoSonarLines(readLines(in));
+
+      int issueResolutions = in.readInt();
+      for (int i = 0; i < issueResolutions; i++) {
+        sourceCode.addIssueResolution(readIssueResolution(in));
+      }
+    }
+    return sourceCode;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Metric<Integer> metric(String key) {
+    return (Metric<Integer>) CoreMetrics.getMetric(key);
+  }
+
+  private static void writeIssue(DataOutputStream out, HtmlIssue issue) throws IOException {
+    writeString(out, issue.ruleKey().toString());
+    writeString(out, issue.message());
+    Integer line = issue.line();
+    out.writeInt(line == null ? 0 : line);
+    Double cost = issue.cost();
+    out.writeDouble(cost == null ? 0 : cost);
+    boolean precise = issue instanceof PreciseHtmlIssue;
+    out.writeBoolean(precise);
+    if (precise) {
+      PreciseHtmlIssue preciseIssue = (PreciseHtmlIssue) issue;
+      out.writeInt(preciseIssue.startColumn());
+      out.writeInt(preciseIssue.endLine());
+      out.writeInt(preciseIssue.endColumn());
+    }
+  }
+
+  private static HtmlIssue readIssue(DataInputStream in) throws IOException {
+    RuleKey ruleKey = RuleKey.parse(readString(in));
+    String message = readString(in);
+    int line = in.readInt();
+    double cost = in.readDouble();
+    if (in.readBoolean()) {
+      return new PreciseHtmlIssue(ruleKey, line, message, in.readInt(), in.readInt(), in.readInt());
+    }
+    Integer issueLine = line == 0 ? null : line;
+    return cost > 0 ? new HtmlIssue(ruleKey, issueLine, message, cost) : new HtmlIssue(ruleKey, issueLine, message);
+  }
+
+  private static void writeTokens(DataOutputStream out, HtmlTokens tokens) throws IOException {
+    out.writeInt(tokens.getHighlightings().size());
+    for (HtmlTokens.Highlighting highlighting : tokens.getHighlightings()) {
+      out.writeInt(highlighting.startLine());
+      out.writeInt(highlighting.startColumn());
+      out.writeInt(highlighting.endLine());
+      out.writeInt(highlighting.endColumn());
+      writeString(out, highlighting.typeOfText().name());
+    }
+    out.writeInt(tokens.getCpdTokens().size());
+    for (HtmlTokens.CpdToken token : tokens.getCpdTokens()) {
+      out.writeInt(token.startLine());
+      out.writeInt(token.startColumn());
+      out.writeInt(token.endLine());
+      out.writeInt(token.endColumn());
+      writeString(out, token.image());
+    }
+  }
+
+  private static HtmlTokens readTokens(DataInputStream in) throws IOException {
+    HtmlTokens tokens = new HtmlTokens();
+    int highlightings = in.readInt();
+    for (int i = 0; i < highlightings; i++) {
+      tokens.highlight(in.readInt(), in.readInt(), in.readInt(), in.readInt(), TypeOfText.valueOf(readString(in)));
+    }
+    int cpdTokens = in.readInt();
+    for (int i = 0; i < cpdTokens; i++) {
+      tokens.addCpdToken(in.readInt(), in.readInt(), in.readInt(), in.readInt(), readString(in));
+    }
+    return tokens;
+  }
+
+  private static void writeIssueResolution(DataOutputStream out, HtmlIssueResolution issueResolution) throws IOException {
+    out.writeInt(issueResolution.line());
+    writeString(out, issueResolution.status().name());
+    out.writeInt(issueResolution.ruleKeys().size());
+    for (RuleKey ruleKey : issueResolution.ruleKeys()) {
+      writeString(out, ruleKey.toString());
+    }
+    String comment = issueResolution.comment();
+    out.writeBoolean(comment != null);
+    if (comment != null) {
+      writeString(out, comment);
+    }
+  }
+
+  private static HtmlIssueResolution readIssueResolution(DataInputStream in) throws IOException {
+    int line = in.readInt();
+    IssueResolution.Status status = IssueResolution.Status.valueOf(readString(in));
+    int ruleKeyCount = in.readInt();
+    Set<RuleKey> ruleKeys = new LinkedHashSet<>();
+    for (int i = 0; i < ruleKeyCount; i++) {
+      ruleKeys.add(RuleKey.parse(readString(in)));
+    }
+    String comment = in.readBoolean() ? readString(in) : null;
+    return new HtmlIssueResolution(line, status, ruleKeys, comment);
+  }
+
+  private static void writeLines(DataOutputStream out, Set<Integer> lines) throws IOException {
+    out.writeInt(lines.size());
+    for (int line : lines) {
+      out.writeInt(line);
+    }
+  }
+
+  private static Set<Integer> readLines(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    Set<Integer> lines = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      lines.add(in.readInt());
+    }
+    return lines;
+  }
+
+  // DataOutputStream.writeUTF is limited to 64 KB, which a CPD token or a message can exceed
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
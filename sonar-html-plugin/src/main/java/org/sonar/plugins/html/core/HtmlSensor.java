@@ -16,12 +16,25 @@
  */
 package org.sonar.plugins.html.core;
 
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.fs.FilePredicate;
@@ -29,10 +42,11 @@ import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.CheckFactory;
-import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.issue.NoSonarFilter;
@@ -49,33 +63,48 @@ import org.sonar.plugins.html.api.HtmlConstants;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.checks.HtmlIssue;
 import org.sonar.plugins.html.checks.PreciseHtmlIssue;
-import org.sonar.plugins.html.lex.PageLexer;
-import org.sonar.plugins.html.lex.VueLexer;
 import org.sonar.plugins.html.rules.CheckClasses;
 import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.visitor.AnalysisProfiler;
 import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
+import org.sonar.plugins.html.visitor.FileTimeBudgetExceededException;
 import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlIssueResolution;
 import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlTokens;
 import org.sonar.plugins.html.visitor.NoSonarScanner;
 import org.sonar.plugins.html.visitor.SonarResolveScanner;
 
 public final class HtmlSensor implements Sensor {
   private static final Logger LOG = Loggers.get(HtmlSensor.class);
   private static final Version ISSUE_RESOLUTION_API_MIN_VERSION = Version.create(13, 5);
+  // Number of files per worker submitted for analysis and not saved yet by the sensor thread.
+  private static final int PENDING_FILES_PER_THREAD = 2;
+  // Number of files lexed ahead of the file being scanned, or waiting to be saved, in the pipelined analysis.
+  private static final int PIPELINE_PENDING_FILES = 4;
+  private static final int PROFILED_VISITORS_LOGGED = 20;
 
   private final SonarRuntime sonarRuntime;
   private final NoSonarFilter noSonarFilter;
-  private final Checks<Object> checks;
+  private final CheckInstanceFactory checks;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final AnalysisWarningsWrapper analysisWarnings;
+  private final String pluginVersion;
 
   public HtmlSensor(SonarRuntime sonarRuntime, NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory,
     CheckFactory checkFactory, AnalysisWarningsWrapper analysisWarnings) {
+    this(sonarRuntime, noSonarFilter, fileLinesContextFactory, checkFactory, analysisWarnings, PluginVersion.get());
+  }
+
+  HtmlSensor(SonarRuntime sonarRuntime, NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory,
+    CheckFactory checkFactory, AnalysisWarningsWrapper analysisWarnings, String pluginVersion) {
     this.sonarRuntime = sonarRuntime;
     this.noSonarFilter = noSonarFilter;
-    this.checks = checkFactory.create(HtmlRulesDefinition.REPOSITORY_KEY).addAnnotatedChecks(CheckClasses.getCheckClasses());
+    this.checks = new CheckInstanceFactory(
+      checkFactory.create(HtmlRulesDefinition.REPOSITORY_KEY).addAnnotatedChecks(CheckClasses.getCheckClasses()));
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.analysisWarnings = analysisWarnings;
+    this.pluginVersion = pluginVersion;
   }
 
   @Override
@@ -99,9 +128,6 @@ public final class HtmlSensor implements Sensor {
 
     FileSystem fileSystem = sensorContext.fileSystem();
 
-    // configure page scanner and the visitors
-    final HtmlAstScanner scanner = setupScanner(sensorContext);
-
     FilePredicates predicates = fileSystem.predicates();
     Iterable<InputFile> inputFiles = fileSystem.inputFiles(
       predicates.and(
@@ -113,26 +139,331 @@ public final class HtmlSensor implements Sensor {
         ErbFileFilter.filePredicate(predicates, sensorContext.config())
     ));
 
-    for (InputFile inputFile : inputFiles) {
+    checks.activeChecks().forEach(this::addAnalysisWarnings);
+
+    AnalysisProfiler profiler = sensorContext.config().getBoolean(HtmlConstants.ANALYSIS_PROFILING_PROP_KEY).orElse(false)
+      ? AnalysisProfiler.create()
+      : AnalysisProfiler.DISABLED;
+    try {
+      analyzeFiles(sensorContext, inputFiles, profiler);
+    } finally {
+      if (profiler.isEnabled()) {
+        LOG.info(profiler.summary(PROFILED_VISITORS_LOGGED));
+      }
+    }
+  }
+
+  private void analyzeFiles(SensorContext sensorContext, Iterable<InputFile> inputFiles, AnalysisProfiler profiler) {
+    // visitors reporting through the sensor context only ever run on the sensor thread
+    final HtmlAstScanner persistingScanner = setupPersistingScanner(sensorContext, profiler);
+    final HtmlAnalysisCache cache = new HtmlAnalysisCache(sensorContext, configurationFingerprint(sensorContext));
+
+    int threads = sensorContext.config().getInt(HtmlConstants.ANALYSIS_THREADS_PROP_KEY).orElse(1);
+    // concurrent analyses end sooner when the largest files are not picked up last
+    Iterable<InputFile> scheduledFiles = threads > 1 ? LargestFirstOrder.sort(inputFiles) : inputFiles;
+    try (ContentPrefetcher sourceCodes = ContentPrefetcher.start(scheduledFiles,
+      sensorContext.config().getInt(HtmlConstants.PREFETCH_FILES_PROP_KEY).orElse(0),
+      sensorContext.config().getLong(HtmlConstants.PREFETCH_MAX_CHARACTERS_PROP_KEY).orElse(HtmlConstants.PREFETCH_MAX_CHARACTERS_DEF_VALUE))) {
+      if (threads > 1) {
+        analyzeInParallel(sensorContext, sourceCodes, persistingScanner, cache, threads, profiler);
+      } else if (sensorContext.config().getBoolean(HtmlConstants.ANALYSIS_PIPELINE_PROP_KEY).orElse(false)) {
+        analyzeInPipeline(sensorContext, sourceCodes, persistingScanner, cache, profiler);
+      } else {
+        analyzeSequentially(sensorContext, sourceCodes, persistingScanner, cache, profiler);
+      }
+    }
+  }
+
+  private void analyzeSequentially(SensorContext sensorContext, Iterator<HtmlSourceCode> sourceCodes, HtmlAstScanner persistingScanner,
+    HtmlAnalysisCache cache, AnalysisProfiler profiler) {
+    // configure page scanner and the visitors
+    final FileAnalyzer analyzer = setupAnalyzer(sensorContext, checks.activeChecks(), profiler);
+
+    while (sourceCodes.hasNext()) {
       if (sensorContext.isCancelled()) {
         return;
       }
+      HtmlSourceCode sourceCode = sourceCodes.next();
+      String cacheKey = cache.key(sourceCode);
+      FileAnalysis analysis = replay(sourceCode, cache, cacheKey, profiler);
+      if (analysis == null) {
+        analysis = analyzer.analyze(sourceCode, cacheKey);
+      }
+      save(sensorContext, persistingScanner, cache, analysis, profiler);
+    }
+  }
 
-      HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+  /**
+   * Lexes the files on a dedicated thread, while the visitors run and the results are saved on the sensor thread in the
+   * iteration order of {@code sourceCodes}. Unlike the parallel analysis, the checks are not duplicated. The number of files
+   * lexed ahead of the one being scanned is bounded, which bounds the memory held by their nodes.
+   */
+  private void analyzeInPipeline(SensorContext sensorContext, Iterator<HtmlSourceCode> sourceCodes, HtmlAstScanner persistingScanner,
+    HtmlAnalysisCache cache, AnalysisProfiler profiler) {
+    LOG.debug("Analyzing HTML files with a lexing thread");
+    final FileAnalyzer analyzer = setupAnalyzer(sensorContext, checks.activeChecks(), profiler);
+    ExecutorService lexer = Executors.newSingleThreadExecutor(daemonThreadFactory("sonar-html-lexer-"));
+    Deque<Future<Supplier<FileAnalysis>>> pending = new ArrayDeque<>();
+    try {
+      while (sourceCodes.hasNext()) {
+        if (sensorContext.isCancelled()) {
+          return;
+        }
+        HtmlSourceCode sourceCode = sourceCodes.next();
+        pending.add(lexer.submit(() -> lexOrReplay(sourceCode, cache, analyzer, profiler)));
+        if (pending.size() >= PIPELINE_PENDING_FILES) {
+          save(sensorContext, persistingScanner, cache, await(pending.poll()).get(), profiler);
+        }
+      }
+      while (!pending.isEmpty()) {
+        if (sensorContext.isCancelled()) {
+          return;
+        }
+        save(sensorContext, persistingScanner, cache, await(pending.poll()).get(), profiler);
+      }
+    } finally {
+      lexer.shutdownNow();
+    }
+  }
 
-      try (Reader reader = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
-        PageLexer lexer = inputFile.filename().endsWith(".vue") ? new VueLexer() : new PageLexer();
-        scanner.scan(lexer.parse(reader), sourceCode);
-        saveMetrics(sensorContext, sourceCode);
-        saveLineLevelMeasures(inputFile, sourceCode);
+  /**
+   * First stage of the pipelined analysis, run on the lexing thread, which also reads the file to hash its content: the
+   * returned supplier replays the results of the file from the cache, or runs the second stage over its nodes.
+   */
+  private static Supplier<FileAnalysis> lexOrReplay(HtmlSourceCode sourceCode, HtmlAnalysisCache cache, FileAnalyzer analyzer,
+    AnalysisProfiler profiler) {
+    String cacheKey = cache.key(sourceCode);
+    FileAnalysis cached = replay(sourceCode, cache, cacheKey, profiler);
+    if (cached != null) {
+      return () -> cached;
+    }
+    FileAnalyzer.LexedFile lexedFile = analyzer.lex(sourceCode, cacheKey);
+    return () -> analyzer.scan(lexedFile);
+  }
 
-      } catch (Exception e) {
-        LOG.error("Cannot analyze file " + inputFile, e);
-        sensorContext.newAnalysisError()
-          .onFile(inputFile)
-          .message(e.getMessage())
-          .save();
+  /**
+   * Everything the results of a file depend on, besides its content.
+   */
+  private String configurationFingerprint(SensorContext sensorContext) {
+    return pluginVersion + ":" + sensorContext.runtime().getProduct() + ":" + sensorContext.runtime().getApiVersion() + ":"
+      + sensorContext.fileSystem().encoding() + ":" + AnalysisTierThresholds.of(sensorContext.config()) + ":"
+      + generatedFileDetection(sensorContext) + ":" + checks.configurationFingerprint();
+  }
+
+  /**
+   * Analyzes the files on {@code threads} workers, each one owning its analyzer and its check instances,
+   * while the results are saved on the sensor thread as soon as their file is analyzed. The results of a file do not
+   * depend on the other files, so they are saved in completion order: a slow file does not hold back the files analyzed
+   * meanwhile by the other workers. The workers share a single queue of files, so an idle worker picks up the next file
+   * whatever the others are doing. The number of files submitted and not saved yet is bounded, which bounds the memory
+   * held by pending results.
+   */
+  private void analyzeInParallel(SensorContext sensorContext, Iterator<HtmlSourceCode> sourceCodes, HtmlAstScanner persistingScanner,
+    HtmlAnalysisCache cache, int threads, AnalysisProfiler profiler) {
+    LOG.debug("Analyzing HTML files with {} threads", threads);
+    // analyzers are created upfront on the sensor thread, each worker borrows one for the time of a file
+    BlockingQueue<FileAnalyzer> analyzers = new ArrayBlockingQueue<>(threads);
+    for (int i = 0; i < threads; i++) {
+      analyzers.add(setupAnalyzer(sensorContext, checks.newInstances(), profiler));
+    }
+    HeapPressureController heapPressure = HeapPressureController.forMaxHeapUsage(
+      sensorContext.config().getInt(HtmlConstants.MAX_HEAP_USAGE_PROP_KEY).orElse(0));
+    ExecutorService executor = Executors.newFixedThreadPool(threads, daemonThreadFactory("sonar-html-analysis-"));
+    CompletionService<FileAnalysis> analyses = new ExecutorCompletionService<>(executor);
+    int pending = 0;
+    try {
+      while (sourceCodes.hasNext()) {
+        if (sensorContext.isCancelled()) {
+          return;
+        }
+        HtmlSourceCode sourceCode = sourceCodes.next();
+        analyses.submit(() -> analyzeOrReplay(sourceCode, cache, analyzers, heapPressure, profiler));
+        pending++;
+        for (Future<FileAnalysis> analyzed = analyses.poll(); analyzed != null; analyzed = analyses.poll()) {
+          save(sensorContext, persistingScanner, cache, await(analyzed), profiler);
+          pending--;
+        }
+        if (pending >= PENDING_FILES_PER_THREAD * threads) {
+          save(sensorContext, persistingScanner, cache, awaitNext(analyses), profiler);
+          pending--;
+        }
+      }
+      while (pending > 0) {
+        if (sensorContext.isCancelled()) {
+          return;
+        }
+        save(sensorContext, persistingScanner, cache, awaitNext(analyses), profiler);
+        pending--;
       }
+    } finally {
+      executor.shutdownNow();
+      if (heapPressure != null && heapPressure.throttles() > 0) {
+        LOG.info("The analysis of HTML files was throttled {} times because of heap pressure", heapPressure.throttles());
+      }
+    }
+  }
+
+  /**
+   * Analysis of a file by a worker, which also reads the file to hash its content: the results of the file are replayed
+   * from the cache when it did not change, without waiting for an analyzer nor for heap.
+   */
+  private static FileAnalysis analyzeOrReplay(HtmlSourceCode sourceCode, HtmlAnalysisCache cache, BlockingQueue<FileAnalyzer> analyzers,
+    @Nullable HeapPressureController heapPressure, AnalysisProfiler profiler) throws InterruptedException {
+    String cacheKey = cache.key(sourceCode);
+    FileAnalysis cached = replay(sourceCode, cache, cacheKey, profiler);
+    if (cached != null) {
+      return cached;
+    }
+    return analyzeWithBorrowedAnalyzer(sourceCode, cacheKey, analyzers, heapPressure);
+  }
+
+  /**
+   * The results of the file replayed from the cache, {@code null} when they cannot be. The file is then not lexed, so the
+   * time it took to be read to compute {@code cacheKey} is recorded here.
+   */
+  @CheckForNull
+  private static FileAnalysis replay(HtmlSourceCode sourceCode, HtmlAnalysisCache cache, @Nullable String cacheKey, AnalysisProfiler profiler) {
+    FileAnalysis cached = cache.read(sourceCode.inputFile(), cacheKey);
+    if (cached != null) {
+      profiler.addPhase("read", sourceCode.readNanos());
+    }
+    return cached;
+  }
+
+  private static FileAnalysis analyzeWithBorrowedAnalyzer(HtmlSourceCode sourceCode, @Nullable String cacheKey,
+    BlockingQueue<FileAnalyzer> analyzers, @Nullable HeapPressureController heapPressure) throws InterruptedException {
+    if (heapPressure == null) {
+      return analyzeWithBorrowedAnalyzer(sourceCode, cacheKey, analyzers);
+    }
+    long estimate = HeapPressureController.estimate(sourceCode);
+    heapPressure.acquire(estimate);
+    try {
+      return analyzeWithBorrowedAnalyzer(sourceCode, cacheKey, analyzers);
+    } finally {
+      heapPressure.release(estimate);
+    }
+  }
+
+  private static FileAnalysis analyzeWithBorrowedAnalyzer(HtmlSourceCode sourceCode, @Nullable String cacheKey,
+    BlockingQueue<FileAnalyzer> analyzers) throws InterruptedException {
+    FileAnalyzer analyzer = analyzers.take();
+    try {
+      return analyzer.analyze(sourceCode, cacheKey);
+    } finally {
+      analyzers.add(analyzer);
+    }
+  }
+
+  private static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the analysis of HTML files", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unexpected failure during the analysis of HTML files", e.getCause());
+    }
+  }
+
+  private static <T> T awaitNext(CompletionService<T> completionService) {
+    try {
+      return await(completionService.take());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the analysis of HTML files", e);
+    }
+  }
+
+  static ThreadFactory daemonThreadFactory(String namePrefix) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private void save(SensorContext sensorContext, HtmlAstScanner persistingScanner, HtmlAnalysisCache cache, FileAnalysis analysis,
+    AnalysisProfiler profiler) {
+    long start = profiler.start();
+    try {
+      save(sensorContext, persistingScanner, cache, analysis);
+    } finally {
+      profiler.stopPhase("save", start);
+    }
+  }
+
+  private void save(SensorContext sensorContext, HtmlAstScanner persistingScanner, HtmlAnalysisCache cache, FileAnalysis analysis) {
+    HtmlSourceCode sourceCode = analysis.sourceCode();
+    InputFile inputFile = sourceCode.inputFile();
+    Exception failure = analysis.failure();
+    if (failure != null) {
+      reportAnalysisError(sensorContext, inputFile, failure);
+      return;
+    }
+
+    try {
+      if (analysis.fromCache()) {
+        replayPersistedResults(sensorContext, sourceCode);
+      } else {
+        persistingScanner.scan(analysis.nodes(), sourceCode);
+      }
+      saveTokens(sensorContext, sourceCode);
+      saveMetrics(sensorContext, sourceCode);
+      saveLineLevelMeasures(inputFile, sourceCode);
+      cache.write(analysis);
+
+    } catch (Exception e) {
+      reportAnalysisError(sensorContext, inputFile, e);
+    }
+  }
+
+  /**
+   * Reports what the persisting scanner would have reported for a file whose results come from the analysis cache.
+   */
+  private void replayPersistedResults(SensorContext sensorContext, HtmlSourceCode sourceCode) {
+    InputFile inputFile = sourceCode.inputFile();
+    if (!sourceCode.getNoSonarLines().isEmpty()) {
+      noSonarFilter.noSonarInFile(inputFile, sourceCode.getNoSonarLines());
+    }
+    if (supportsIssueResolution(sensorContext)) {
+      for (HtmlIssueResolution issueResolution : sourceCode.getIssueResolutions()) {
+        SonarResolveScanner.saveIssueResolution(sensorContext, inputFile, issueResolution);
+      }
+    }
+  }
+
+  private static void reportAnalysisError(SensorContext sensorContext, InputFile inputFile, Exception e) {
+    if (e instanceof FileTimeBudgetExceededException) {
+      LOG.warn("Cannot analyze file " + inputFile + ": " + e.getMessage());
+    } else {
+      LOG.error("Cannot analyze file " + inputFile, e);
+    }
+    sensorContext.newAnalysisError()
+      .onFile(inputFile)
+      .message(e.getMessage())
+      .save();
+  }
+
+  private static void saveTokens(SensorContext context, HtmlSourceCode sourceCode) {
+    HtmlTokens tokens = sourceCode.getTokens();
+    if (tokens == null) {
+      return;
+    }
+    InputFile inputFile = sourceCode.inputFile();
+    try {
+      NewHighlighting highlighting = context.newHighlighting().onFile(inputFile);
+      for (HtmlTokens.Highlighting range : tokens.getHighlightings()) {
+        highlighting.highlight(range.startLine(), range.startColumn(), range.endLine(), range.endColumn(), range.typeOfText());
+      }
+      NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
+      for (HtmlTokens.CpdToken token : tokens.getCpdTokens()) {
+        cpdTokens.addToken(token.startLine(), token.startColumn(), token.endLine(), token.endColumn(), token.image());
+      }
+      highlighting.save();
+      cpdTokens.save();
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Giving up highlighting/handling duplication for file " + inputFile, e);
     }
   }
 
@@ -185,27 +516,39 @@ public final class HtmlSensor implements Sensor {
 
   /**
    * Create PageScanner with Visitors.
+   * The scanner holds per-file state in its visitors, so the analyzer must not be shared between threads.
    */
-  private HtmlAstScanner setupScanner(SensorContext context) {
+  private static FileAnalyzer setupAnalyzer(SensorContext context, List<AbstractPageCheck> checks, AnalysisProfiler profiler) {
     List<DefaultNodeVisitor> visitors = new ArrayList<>();
     if (context.runtime().getProduct() != SonarProduct.SONARLINT) {
-      visitors.add(new HtmlTokensVisitor(context));
+      visitors.add(new HtmlTokensVisitor());
     }
     visitors.add(new PageCountLines());
     visitors.add(new ComplexityVisitor());
+    HtmlAstScanner scanner = new HtmlAstScanner(visitors, profiler);
+
+    for (AbstractPageCheck check : checks) {
+      scanner.addVisitor(check);
+    }
+    return new FileAnalyzer(scanner, profiler, context.config().getLong(HtmlConstants.FILE_TIME_BUDGET_PROP_KEY).orElse(0L),
+      AnalysisTierThresholds.of(context.config()), generatedFileDetection(context),
+      context.config().getBoolean(HtmlConstants.STATE_MACHINE_LEXER_PROP_KEY).orElse(false));
+  }
+
+  private static boolean generatedFileDetection(SensorContext context) {
+    return context.config().getBoolean(HtmlConstants.GENERATED_FILE_DETECTION_PROP_KEY).orElse(false);
+  }
+
+  /**
+   * Create the scanner of the visitors which directly report to the sensor context.
+   */
+  private HtmlAstScanner setupPersistingScanner(SensorContext context, AnalysisProfiler profiler) {
+    List<DefaultNodeVisitor> visitors = new ArrayList<>();
     visitors.add(new NoSonarScanner(noSonarFilter));
     if (supportsIssueResolution(context)) {
       visitors.add(new SonarResolveScanner(context));
     }
-    HtmlAstScanner scanner = new HtmlAstScanner(visitors);
-
-    for (Object check : checks.all()) {
-      AbstractPageCheck pageCheck = (AbstractPageCheck) check;
-      addAnalysisWarnings(pageCheck);
-      pageCheck.setRuleKey(Objects.requireNonNull(checks.ruleKey(check)));
-      scanner.addVisitor(pageCheck);
-    }
-    return scanner;
+    return new HtmlAstScanner(visitors, profiler);
   }
 
   private void addAnalysisWarnings(AbstractPageCheck check) {
@@ -16,87 +16,290 @@
  */
 package org.sonar.plugins.html.core;
 
-import com.sonar.sslr.api.GenericTokenType;
-import com.sonar.sslr.api.Token;
-import com.sonar.sslr.api.TokenType;
-import com.sonar.sslr.api.Trivia;
-import java.io.IOException;
 import java.util.List;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.sensor.SensorContext;
-import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
-import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
+import org.sonar.plugins.html.visitor.FullTierVisitor;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlTokens;
 
-public class HtmlTokensVisitor extends DefaultNodeVisitor {
-
-  private static final Logger LOG = LoggerFactory.getLogger(HtmlTokensVisitor.class);
+/**
+ * Computes the highlighting and the CPD tokens of a file from the nodes produced by the
+ * {@link org.sonar.plugins.html.lex.PageLexer}, so that the file is not lexed a second time.
+ * <p>
+ * Comments, JSP expressions and the doctype are taken as a whole from their node, except JSP comments which, as with the
+ * former lexer, end at the first {@code %>}. The content of the other nodes,
+ * as well as the text the nodes do not cover (e.g. outside of the template of a Vue file), is split into tags,
+ * attribute values, words and single characters, while code comments ({@code //} and {@code /* *}{@code /}) are highlighted.
+ * <p>
+ * No CPD token is computed for the files detected as generated.
+ * <p>
+ * The tokens are only recorded on the {@link HtmlSourceCode}, so that the visitor can run on any thread;
+ * {@link HtmlSensor} saves them.
+ */
+public class HtmlTokensVisitor extends DefaultNodeVisitor implements FullTierVisitor {
 
-  private final SensorContext context;
+  private static final String DOCTYPE = "<!DOCTYPE";
+  private static final String JSP_COMMENT = "<%--";
 
-  public HtmlTokensVisitor(SensorContext context) {
-    this.context = context;
-  }
+  private HtmlSourceCode sourceCode;
+  private String text;
+  private HtmlTokens tokens;
+  private boolean cpd;
 
   @Override
   public void startDocument(List<Node> nodes) {
-    try {
-      highlightAndDuplicate();
-    } catch (IllegalArgumentException e) {
-      LOG.warn("Giving up highlighting/handling duplication for file " + getHtmlSourceCode().inputFile(), e);
+    sourceCode = getHtmlSourceCode();
+    if (!sourceCode.shouldComputeMetric()) {
+      return;
+    }
+    text = sourceCode.contents();
+    tokens = new HtmlTokens();
+    // duplications in generated files are not worth reporting
+    cpd = !sourceCode.isGenerated();
+
+    int offset = 0;
+    for (Node node : nodes) {
+      int start = offset(node.getStartLinePosition(), node.getStartColumnPosition());
+      // nodes extracted from PHP strings overlap the node they were found in
+      if (node.isEmbedded() || start < offset) {
+        continue;
+      }
+      int end = offset(node.getEndLinePosition(), node.getEndColumnPosition());
+      scan(offset, start);
+      scanNode(node, start, end);
+      offset = end;
+    }
+    scan(offset, text.length());
+
+    sourceCode.setTokens(tokens);
+    sourceCode = null;
+    text = null;
+    tokens = null;
+  }
+
+  private int offset(int line, int column) {
+    if (line > sourceCode.lineCount()) {
+      return text.length();
     }
+    return Math.min(sourceCode.lineStartOffset(line) + column, text.length());
   }
 
-  private void highlightAndDuplicate() {
-    if (!getHtmlSourceCode().shouldComputeMetric()) {
-      return;
+  private void scanNode(Node node, int start, int end) {
+    NodeType nodeType = node.getNodeType();
+    if (nodeType == NodeType.COMMENT && !text.startsWith(JSP_COMMENT, start)) {
+      highlight(start, end, TypeOfText.COMMENT);
+    } else if ((nodeType == NodeType.EXPRESSION || nodeType == NodeType.DIRECTIVE) && text.startsWith("<%", start)) {
+      token(start, end, TypeOfText.ANNOTATION);
+    } else if (nodeType == NodeType.DIRECTIVE && text.startsWith(DOCTYPE, start)) {
+      token(start, end, TypeOfText.STRUCTURED_COMMENT);
+    } else {
+      scan(start, end);
     }
-    NewHighlighting highlighting = context.newHighlighting();
-    InputFile inputFile = getHtmlSourceCode().inputFile();
-    highlighting.onFile(inputFile);
+  }
 
-    NewCpdTokens cpdTokens = context.newCpdTokens();
-    cpdTokens.onFile(inputFile);
+  /**
+   * Splits the text in the {@code [from, to)} range into tokens.
+   */
+  private void scan(int from, int to) {
+    int i = from;
+    while (i < to) {
+      if (isWhitespace(text.charAt(i))) {
+        i++;
+      } else {
+        i = scanToken(i, to);
+      }
+    }
+  }
 
-    String fileContent;
-    try {
-      fileContent = inputFile.contents();
-    } catch (IOException e) {
-      throw new IllegalStateException("Cannot read " + inputFile, e);
+  /**
+   * Records the token starting at {@code start} and returns its end.
+   */
+  private int scanToken(int start, int to) {
+    int end = doctypeEnd(start, to);
+    if (end > 0) {
+      token(start, end, TypeOfText.STRUCTURED_COMMENT);
+      return end;
     }
+    end = tagEnd(start, to);
+    if (end > 0) {
+      token(start, end, TypeOfText.KEYWORD);
+      return end;
+    }
+    end = commentEnd(start, to);
+    if (end > 0) {
+      highlight(start, end, TypeOfText.COMMENT);
+      return end;
+    }
+    end = delimitedEnd(start, to, "<%", "%>");
+    if (end > 0) {
+      token(start, end, TypeOfText.ANNOTATION);
+      return end;
+    }
+    end = attributeValueEnd(start, to);
+    if (end > 0) {
+      addCpdToken(start, end);
+      // the "=" is not part of the value
+      highlight(start + 1, end, TypeOfText.STRING);
+      return end;
+    }
+    end = wordEnd(start, to);
+    addCpdToken(start, end);
+    return end;
+  }
 
-    for (Token token : HtmlLexer.create(context.fileSystem().encoding()).lex(fileContent)) {
-      TokenType tokenType = token.getType();
-      if (!tokenType.equals(GenericTokenType.EOF)) {
-        TokenLocation tokenLocation = new TokenLocation(token);
-        cpdTokens.addToken(tokenLocation.startLine(), tokenLocation.startCharacter(), tokenLocation.endLine(), tokenLocation.endCharacter(), token.getValue());
+  private int doctypeEnd(int start, int to) {
+    if (!text.startsWith(DOCTYPE, start)) {
+      return -1;
+    }
+    int end = -1;
+    for (int i = start + DOCTYPE.length(); i < to && !isLineTerminator(text.charAt(i)); i++) {
+      if (text.charAt(i) == '>') {
+        end = i + 1;
       }
-      if (tokenType.equals(HtmlTokenType.DOCTYPE)) {
-        highlight(highlighting, token, TypeOfText.STRUCTURED_COMMENT);
-      } else if (tokenType.equals(HtmlTokenType.EXPRESSION)) {
-        highlight(highlighting, token, TypeOfText.ANNOTATION);
-      } else if (tokenType.equals(HtmlTokenType.TAG)) {
-        highlight(highlighting, token, TypeOfText.KEYWORD);
-      } else if (tokenType.equals(HtmlTokenType.ATTRIBUTE)) {
-        TokenLocation tokenLocation = new TokenLocation(token);
-        highlighting.highlight(tokenLocation.startLine(), tokenLocation.startCharacter() + /* = */ 1, tokenLocation.endLine(), tokenLocation.endCharacter(), TypeOfText.STRING);
+    }
+    return end;
+  }
+
+  /**
+   * {@code <name}, {@code <name>}, {@code </name}, {@code </name>}, {@code />} and {@code >}.
+   */
+  private int tagEnd(int start, int to) {
+    char c = text.charAt(start);
+    if (c == '>') {
+      return start + 1;
+    }
+    if (c == '/') {
+      return start + 1 < to && text.charAt(start + 1) == '>' ? (start + 2) : -1;
+    }
+    if (c != '<') {
+      return -1;
+    }
+    int nameStart = start + 1 < to && text.charAt(start + 1) == '/' ? (start + 2) : (start + 1);
+    int i = nameStart;
+    while (i < to && (isWordCharacter(text.charAt(i)) || text.charAt(i) == ':')) {
+      i++;
+    }
+    if (i == nameStart) {
+      return -1;
+    }
+    return i < to && text.charAt(i) == '>' ? (i + 1) : i;
+  }
+
+  private int commentEnd(int start, int to) {
+    int end = delimitedEnd(start, to, JSP_COMMENT, "%>");
+    if (end < 0) {
+      end = delimitedEnd(start, to, "<!--", "-->");
+    }
+    if (end < 0) {
+      end = delimitedEnd(start, to, "{#", "#}");
+    }
+    if (end < 0) {
+      end = delimitedEnd(start, to, "/*", "*/");
+    }
+    if (end < 0 && text.startsWith("//", start)) {
+      end = start + 2;
+      while (end < to && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+        end++;
+      }
+    }
+    return end;
+  }
+
+  private int delimitedEnd(int start, int to, String opening, String closing) {
+    if (!text.startsWith(opening, start)) {
+      return -1;
+    }
+    int closingStart = indexOf(closing, start + opening.length(), to);
+    return closingStart < 0 ? -1 : (closingStart + closing.length());
+  }
+
+  /**
+   * Offset of {@code s} when it lies within the {@code [from, to)} range, -1 otherwise: the search stops at the end of
+   * the node, rather than going through the rest of the file for each unterminated construct.
+   */
+  private int indexOf(String s, int from, int to) {
+    int last = to - s.length();
+    for (int i = from; i <= last; i++) {
+      if (text.startsWith(s, i)) {
+        return i;
       }
-      for (Trivia trivia : token.getTrivia()) {
-        highlight(highlighting, trivia.getToken(), TypeOfText.COMMENT);
+    }
+    return -1;
+  }
+
+  /**
+   * {@code ="value"}, {@code ='value'} or {@code =value}.
+   */
+  private int attributeValueEnd(int start, int to) {
+    if (text.charAt(start) != '=' || start + 1 >= to) {
+      return -1;
+    }
+    char next = text.charAt(start + 1);
+    if (next == '"' || next == '\'') {
+      for (int i = start + 2; i < to; i++) {
+        char c = text.charAt(i);
+        if (c == '"' || c == '\'') {
+          return i + 1;
+        }
       }
+      return -1;
     }
+    int i = start + 1;
+    while (i < to && isUnquotedValueCharacter(text.charAt(i))) {
+      i++;
+    }
+    return i > start + 1 ? i : -1;
+  }
+
+  /**
+   * End of the word starting at {@code start}, or of the single character at {@code start} when it is not part of a word.
+   */
+  private int wordEnd(int start, int to) {
+    int i = start;
+    while (i < to && isWordCharacter(text.charAt(i))) {
+      i++;
+    }
+    return i > start ? i : (start + 1);
+  }
+
+  private void token(int start, int end, TypeOfText typeOfText) {
+    addCpdToken(start, end);
+    highlight(start, end, typeOfText);
+  }
+
+  private void addCpdToken(int start, int end) {
+    if (!cpd) {
+      return;
+    }
+    int startLine = sourceCode.lineOf(start);
+    int endLine = sourceCode.lineOf(end);
+    tokens.addCpdToken(startLine, start - sourceCode.lineStartOffset(startLine), endLine, end - sourceCode.lineStartOffset(endLine),
+      text.substring(start, end));
+  }
+
+  private void highlight(int start, int end, TypeOfText typeOfText) {
+    int startLine = sourceCode.lineOf(start);
+    int endLine = sourceCode.lineOf(end);
+    tokens.highlight(startLine, start - sourceCode.lineStartOffset(startLine), endLine, end - sourceCode.lineStartOffset(endLine), typeOfText);
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
 
-    highlighting.save();
-    cpdTokens.save();
+  private static boolean isWordCharacter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
   }
 
-  private static void highlight(NewHighlighting highlighting, Token token, TypeOfText typeOfText) {
-    TokenLocation tokenLocation = new TokenLocation(token);
-    highlighting.highlight(tokenLocation.startLine(), tokenLocation.startCharacter(), tokenLocation.endLine(), tokenLocation.endCharacter(), typeOfText);
+  private static boolean isUnquotedValueCharacter(char c) {
+    return !isWhitespace(c) && c != '\'' && c != '"' && c != '=' && c != '<' && c != '>' && c != '`';
   }
 
 }
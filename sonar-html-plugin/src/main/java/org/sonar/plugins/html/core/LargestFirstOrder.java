@@ -0,0 +1,65 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Orders the files so that the largest ones are analyzed first. When files are analyzed concurrently, starting with the
+ * largest ones avoids ending the analysis with a single thread busy with a large file picked up late, while the
+ * small files fill in the gaps of the other threads. This relies on the results being saved as files complete: saved
+ * in this order, the largest file would hold back the saving, and then the analysis, of the small files.
+ */
+final class LargestFirstOrder {
+
+  private LargestFirstOrder() {
+  }
+
+  /**
+   * The files from the largest to the smallest, as reported by the file system. Files of the same size, or whose size
+   * cannot be read, keep their original order.
+   */
+  static List<InputFile> sort(Iterable<InputFile> inputFiles) {
+    List<SizedFile> sizedFiles = new ArrayList<>();
+    for (InputFile inputFile : inputFiles) {
+      sizedFiles.add(new SizedFile(inputFile, size(inputFile)));
+    }
+    // List.sort is stable
+    sizedFiles.sort(Comparator.comparingLong(SizedFile::size).reversed());
+    return sizedFiles.stream().map(SizedFile::inputFile).toList();
+  }
+
+  /**
+   * Size of the file in bytes, as reported by the file system, 0 when it cannot be read.
+   */
+  static long size(InputFile inputFile) {
+    try {
+      return Files.size(inputFile.path());
+    } catch (IOException | RuntimeException e) {
+      return 0L;
+    }
+  }
+
+  private record SizedFile(InputFile inputFile, long size) {
+  }
+
+}
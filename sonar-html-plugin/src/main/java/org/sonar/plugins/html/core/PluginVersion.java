@@ -0,0 +1,58 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Version of the plugin, written by the build into a resource. The results of a file depend on it as much as on the
+ * content of the file, since a new version may change the lexer, the highlighting or the logic of a rule.
+ */
+final class PluginVersion {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PluginVersion.class);
+  private static final String RESOURCE = "/org/sonar/plugins/html/plugin.properties";
+
+  private PluginVersion() {
+  }
+
+  /**
+   * The version of the plugin. When the resource was not filtered by the build, a value unique to the current
+   * analysis is returned instead, so that no result of a previous analysis is trusted.
+   */
+  static String get() {
+    try (InputStream in = PluginVersion.class.getResourceAsStream(RESOURCE)) {
+      if (in != null) {
+        Properties properties = new Properties();
+        properties.load(in);
+        String version = properties.getProperty("version");
+        if (version != null && !version.isEmpty() && !version.startsWith("${")) {
+          return version;
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to read the version of the plugin", e);
+    }
+    return "unknown-" + UUID.randomUUID();
+  }
+
+}
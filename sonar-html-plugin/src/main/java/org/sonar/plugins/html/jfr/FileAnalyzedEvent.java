@@ -0,0 +1,72 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.jfr;
+
+import javax.annotation.Nullable;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Analysis of a file, reported once its results are ready to be saved. The event spans the scanning of the file, while
+ * the time spent reading and lexing it beforehand is a field: in the pipelined analysis, a lexed file waits for the
+ * previous files to be scanned and saved, which is part of neither.
+ */
+@Name("org.sonar.plugins.html.FileAnalyzed")
+@Label("HTML File Analyzed")
+@Category({"SonarQube", "HTML"})
+@StackTrace(false)
+public final class FileAnalyzedEvent extends jdk.jfr.Event {
+
+  @Label("File")
+  String path;
+
+  @Label("Size")
+  @Description("Number of characters of the file")
+  long size;
+
+  @Label("Node Count")
+  int nodeCount;
+
+  @Label("Analysis Tier")
+  String tier;
+
+  @Label("Failed")
+  boolean failed;
+
+  @Label("Lexing Time")
+  @Description("Time spent reading and lexing the file, before the scanning the event spans")
+  @Timespan(Timespan.NANOSECONDS)
+  long lexingTime;
+
+  public void report(String path, long size, int nodeCount, @Nullable String tier, boolean failed, long lexingNanos) {
+    end();
+    if (shouldCommit()) {
+      this.path = path;
+      this.size = size;
+      this.nodeCount = nodeCount;
+      this.tier = tier;
+      this.failed = failed;
+      this.lexingTime = lexingNanos;
+      commit();
+    }
+  }
+
+}
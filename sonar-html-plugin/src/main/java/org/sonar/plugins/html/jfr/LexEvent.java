@@ -0,0 +1,49 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.jfr;
+
+import javax.annotation.Nullable;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Tokenization of a file by the {@code PageLexer}.
+ */
+@Name("org.sonar.plugins.html.Lex")
+@Label("HTML Lexing")
+@Category({"SonarQube", "HTML"})
+@StackTrace(false)
+public final class LexEvent extends jdk.jfr.Event {
+
+  @Label("File")
+  String path;
+
+  @Label("Node Count")
+  int nodeCount;
+
+  public void report(@Nullable String path, int nodeCount) {
+    end();
+    if (shouldCommit()) {
+      this.path = path;
+      this.nodeCount = nodeCount;
+      commit();
+    }
+  }
+
+}
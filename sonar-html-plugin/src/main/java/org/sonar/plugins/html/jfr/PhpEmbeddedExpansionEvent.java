@@ -0,0 +1,56 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.jfr;
+
+import javax.annotation.Nullable;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Extraction of the HTML embedded in the PHP string literals of a file.
+ */
+@Name("org.sonar.plugins.html.PhpEmbeddedExpansion")
+@Label("HTML PHP Embedded Expansion")
+@Category({"SonarQube", "HTML"})
+@StackTrace(false)
+public final class PhpEmbeddedExpansionEvent extends jdk.jfr.Event {
+
+  @Label("File")
+  String path;
+
+  @Label("Node Count")
+  @Description("Number of nodes before the expansion")
+  int nodeCount;
+
+  @Label("Embedded Node Count")
+  @Description("Number of nodes extracted from PHP string literals")
+  int embeddedNodeCount;
+
+  public void report(@Nullable String path, int nodeCount, int embeddedNodeCount) {
+    end();
+    if (shouldCommit()) {
+      this.path = path;
+      this.nodeCount = nodeCount;
+      this.embeddedNodeCount = embeddedNodeCount;
+      commit();
+    }
+  }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Run of the visitors of a scanner over the nodes of a file.
+ */
+@Name("org.sonar.plugins.html.Scan")
+@Label("HTML Scan")
+@Category({"SonarQube", "HTML"})
+@StackTrace(false)
+public final class ScanEvent extends jdk.jfr.Event {
+
+  @Label("File")
+  String path;
+
+  @Label("Node Count")
+  int nodeCount;
+
+  @Label("Visitor Count")
+  int visitorCount;
+
+  public void report(String path, int nodeCount, int visitorCount) {
+    end();
+    if (shouldCommit()) {
+      this.path = path;
+      this.nodeCount = nodeCount;
+      this.visitorCount = visitorCount;
+      commit();
+    }
+  }
+
+}
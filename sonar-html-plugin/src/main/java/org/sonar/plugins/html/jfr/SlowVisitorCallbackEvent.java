@@ -0,0 +1,59 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Callback of a visitor, typically a rule, which took longer than the threshold of the event. The default threshold
+ * keeps the overhead low when the event is enabled; it can be lowered in the recording settings.
+ */
+@Name("org.sonar.plugins.html.SlowVisitorCallback")
+@Label("HTML Slow Visitor Callback")
+@Category({"SonarQube", "HTML"})
+@StackTrace(false)
+@Threshold("10 ms")
+public final class SlowVisitorCallbackEvent extends jdk.jfr.Event {
+
+  @Label("File")
+  String path;
+
+  @Label("Visitor")
+  String visitor;
+
+  @Label("Callback")
+  String callback;
+
+  @Label("Line")
+  int line;
+
+  public void report(String path, Object visitor, String callback, int line) {
+    end();
+    if (shouldCommit()) {
+      this.path = path;
+      this.visitor = visitor.getClass().getName();
+      this.callback = callback;
+      this.line = line;
+      commit();
+    }
+  }
+
+}
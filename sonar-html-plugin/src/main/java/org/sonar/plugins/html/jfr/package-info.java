@@ -0,0 +1,24 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+/**
+ * Java Flight Recorder events of the analysis. They cost next to nothing unless a recording enables them,
+ * e.g. with {@code -XX:StartFlightRecording} on the scanner JVM.
+ */
+@ParametersAreNonnullByDefault
+package org.sonar.plugins.html.jfr;
+
+import javax.annotation.ParametersAreNonnullByDefault;
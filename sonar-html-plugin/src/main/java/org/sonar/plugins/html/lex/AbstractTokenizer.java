@@ -16,7 +16,6 @@
  */
 package org.sonar.plugins.html.lex;
 
-import java.util.Arrays;
 import java.util.List;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.sslr.channel.Channel;
@@ -30,34 +29,52 @@ import org.sonar.sslr.channel.EndMatcher;
  */
 abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
 
-  private final class EndTokenMatcher implements EndMatcher {
+  /**
+   * Tells whether the end delimiter of a token starts at an offset from the current position of the reader. It is
+   * called for each offset in turn, from the character following the start of the token, and looks the characters up
+   * with {@link CodeReader#charAt(int)}, so that the token is found before anything is consumed or allocated.
+   */
+  interface LookaheadEndMatcher {
+    boolean match(int offset);
+  }
 
-    private final CodeReader codeReader;
-    private boolean quoting;
+  /**
+   * Counts the nested start and end delimiters, the token ending with the end delimiter closing its start.
+   */
+  private abstract class NestingEndMatcher implements LookaheadEndMatcher {
+
+    protected final CodeReader codeReader;
     private int nesting;
 
-    private EndTokenMatcher(CodeReader codeReader) {
+    protected NestingEndMatcher(CodeReader codeReader) {
       this.codeReader = codeReader;
     }
 
+    protected boolean matchEndToken(int offset) {
+      if (startsWith(codeReader, offset, startChars, true)) {
+        nesting++;
+      } else if (startsWith(codeReader, offset, endChars, false)) {
+        nesting--;
+        return nesting < 0;
+      }
+      return false;
+    }
+  }
+
+  private final class EndTokenMatcher extends NestingEndMatcher {
+
+    private boolean quoting;
+
+    private EndTokenMatcher(CodeReader codeReader) {
+      super(codeReader);
+    }
+
     @Override
-    public boolean match(int endFlag) {
-      if (endFlag == '"') {
+    public boolean match(int offset) {
+      if (codeReader.charAt(offset) == '"') {
         quoting = !quoting;
       }
-      if (!quoting) {
-        boolean started = equalsIgnoreCase(codeReader.peek(startChars.length), startChars);
-        if (started) {
-          nesting++;
-        } else {
-          boolean ended = Arrays.equals(codeReader.peek(endChars.length), endChars);
-          if (ended) {
-            nesting--;
-            return nesting < 0;
-          }
-        }
-      }
-      return false;
+      return !quoting && matchEndToken(offset);
     }
   }
 
@@ -72,7 +89,7 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
    * Used for PHP ({@code <?php ?>}) and JSP ({@code <% %>}) blocks where embedded code
    * may contain end token sequences inside strings or comments.
    */
-  final class CodeAwareEndMatcher implements EndMatcher {
+  final class CodeAwareEndMatcher extends NestingEndMatcher {
 
     private static final int NORMAL = 0;
     private static final int LINE_COMMENT = 1;
@@ -80,18 +97,17 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
     private static final int SINGLE_QUOTE = 3;
     private static final int DOUBLE_QUOTE = 4;
 
-    private final CodeReader codeReader;
     private int state = NORMAL;
     private int previousChar;
     private boolean escaped;
-    private int nesting;
 
     CodeAwareEndMatcher(CodeReader codeReader) {
-      this.codeReader = codeReader;
+      super(codeReader);
     }
 
     @Override
-    public boolean match(int endFlag) {
+    public boolean match(int offset) {
+      char endFlag = codeReader.charAt(offset);
       boolean result = false;
 
       switch (state) {
@@ -100,13 +116,13 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
             state = NORMAL;
           }
           // In PHP/JSP, block delimiters (?> / %>) still close the block inside comments
-          result = matchEndToken();
+          result = matchEndToken(offset);
           break;
         case BLOCK_COMMENT:
           if (previousChar == '*' && endFlag == '/') {
             state = NORMAL;
           }
-          result = matchEndToken();
+          result = matchEndToken(offset);
           break;
         case SINGLE_QUOTE:
           if (endFlag == '\'' && !escaped) {
@@ -119,7 +135,7 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
           }
           break;
         default:
-          result = matchNormal(endFlag);
+          result = matchNormal(endFlag, offset);
           break;
       }
 
@@ -128,7 +144,7 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
       return result;
     }
 
-    private boolean matchNormal(int endFlag) {
+    private boolean matchNormal(char endFlag, int offset) {
       if (previousChar == '/' && endFlag == '/') {
         state = LINE_COMMENT;
       } else if (previousChar == '/' && endFlag == '*') {
@@ -138,21 +154,7 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
       } else if (endFlag == '"') {
         state = DOUBLE_QUOTE;
       } else {
-        return matchEndToken();
-      }
-      return false;
-    }
-
-    private boolean matchEndToken() {
-      boolean started = equalsIgnoreCase(codeReader.peek(startChars.length), startChars);
-      if (started) {
-        nesting++;
-      } else {
-        boolean ended = Arrays.equals(codeReader.peek(endChars.length), endChars);
-        if (ended) {
-          nesting--;
-          return nesting < 0;
-        }
+        return matchEndToken(offset);
       }
       return false;
     }
@@ -171,18 +173,22 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
     nodeList.add(node);
   }
 
+  /**
+   * The characters the tokens of this tokenizer start with, case-insensitively.
+   */
+  char[] startChars() {
+    return startChars;
+  }
+
   @Override
   public boolean consume(CodeReader codeReader, T nodeList) {
-    if (equalsIgnoreCase(codeReader.peek(startChars.length), startChars)) {
+    if (startsWith(codeReader, 0, startChars, true)) {
       Node node = createNode();
       setStartPosition(codeReader, node);
 
-      StringBuilder stringBuilder = new StringBuilder();
-      popTo(codeReader, getEndMatcher(codeReader), stringBuilder);
-      for (int i = 0; i < endChars.length; i++) {
-        codeReader.pop(stringBuilder);
-      }
-      node.setCode(stringBuilder.toString());
+      // the whole token is found ahead, then consumed at once
+      int length = endOffset(codeReader) + endChars.length;
+      popCode(codeReader, nodeList, node, length);
       setEndPosition(codeReader, node);
 
       addNode(nodeList, node);
@@ -193,6 +199,67 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
     }
   }
 
+  /**
+   * Offset from the current position of the end delimiter of the token starting at the current position, or the
+   * number of remaining characters when there is none.
+   */
+  protected int endOffset(CodeReader codeReader) {
+    return endOffset(codeReader, new EndTokenMatcher(codeReader));
+  }
+
+  protected static int endOffset(CodeReader codeReader, LookaheadEndMatcher endMatcher) {
+    int remaining = codeReader.length();
+    for (int offset = 1; offset < remaining; offset++) {
+      if (endMatcher.match(offset)) {
+        return offset;
+      }
+    }
+    return remaining;
+  }
+
+  /**
+   * Offset of the first occurrence of the token from {@code fromOffset}, or the number of remaining characters when
+   * there is none.
+   */
+  protected static int indexOf(CodeReader codeReader, char[] token, int fromOffset) {
+    int remaining = codeReader.length();
+    char first = token[0];
+    for (int offset = fromOffset; offset < remaining; offset++) {
+      if (codeReader.charAt(offset) == first && startsWith(codeReader, offset, token, false)) {
+        return offset;
+      }
+    }
+    return remaining;
+  }
+
+  /**
+   * Pops the given number of characters as a single string. As with {@link CodeReader#pop(Appendable)}, the
+   * characters past the end of the source are read as {@code (char) -1}.
+   */
+  protected static String pop(CodeReader codeReader, int count) {
+    StringBuilder stringBuilder = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      stringBuilder.append((char) codeReader.pop());
+    }
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Pops the given number of characters as the code of the node. When the nodes are read from a source, the code is
+   * the region of the source, unless the token is cut by the end of the source.
+   */
+  protected static void popCode(CodeReader codeReader, List<Node> nodeList, Node node, int count) {
+    if (nodeList instanceof SourceNodeList sourceNodes && count <= codeReader.length()) {
+      int start = sourceNodes.index(codeReader);
+      for (int i = 0; i < count; i++) {
+        codeReader.pop();
+      }
+      node.setCode(sourceNodes.source(), start, start + count);
+    } else {
+      node.setCode(pop(codeReader, count));
+    }
+  }
+
   protected static void popTo(CodeReader codeReader, EndMatcher endMatcher, StringBuilder stringBuilder) {
     boolean shouldContinue = codeReader.peek() != -1;
     while (shouldContinue) {
@@ -214,22 +281,18 @@ abstract class AbstractTokenizer<T extends List<Node>> extends Channel<T> {
     node.setStartColumnPosition(code.getColumnPosition());
   }
 
-  private static boolean equalsIgnoreCase(char[] a, char[] b) {
-    if (a.length != b.length) {
-      return false;
-    }
-
-    for (int i = 0; i < a.length; i++) {
-      if (Character.toLowerCase(a[i]) != Character.toLowerCase(b[i])) {
+  /**
+   * Whether the token is found at the given offset from the current position, without the allocation of
+   * {@link CodeReader#peek(int)}.
+   */
+  static boolean startsWith(CodeReader codeReader, int offset, char[] token, boolean ignoreCase) {
+    for (int i = 0; i < token.length; i++) {
+      char c = codeReader.charAt(offset + i);
+      if (c != token[i] && (!ignoreCase || Character.toLowerCase(c) != Character.toLowerCase(token[i]))) {
         return false;
       }
     }
-
     return true;
   }
 
-  protected EndMatcher getEndMatcher(CodeReader codeReader) {
-    return new EndTokenMatcher(codeReader);
-  }
-
 }
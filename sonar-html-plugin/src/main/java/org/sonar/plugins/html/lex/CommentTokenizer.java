@@ -16,13 +16,11 @@
  */
 package org.sonar.plugins.html.lex;
 
-import java.util.Arrays;
 import java.util.List;
 
 import org.sonar.plugins.html.node.CommentNode;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.sslr.channel.CodeReader;
-import org.sonar.sslr.channel.EndMatcher;
 
 /**
  * Tokenizer for a HTML or JSP comment.
@@ -31,21 +29,6 @@ import org.sonar.sslr.channel.EndMatcher;
  */
 class CommentTokenizer<T extends List<Node>> extends AbstractTokenizer<T> {
 
-  private final class EndTokenMatcher implements EndMatcher {
-
-    private final CodeReader codeReader;
-
-    private EndTokenMatcher(CodeReader codeReader) {
-      this.codeReader = codeReader;
-    }
-
-    @Override
-    public boolean match(int endFlag) {
-      return Arrays.equals(codeReader.peek(endChars.length), endChars);
-    }
-
-  }
-
   private final Boolean html;
   private final String startToken;
   private final String endToken;
@@ -60,9 +43,12 @@ class CommentTokenizer<T extends List<Node>> extends AbstractTokenizer<T> {
     this.endChars = endToken.toCharArray();
   }
 
+  /**
+   * Comments do not nest: the token ends with the first end delimiter.
+   */
   @Override
-  protected EndMatcher getEndMatcher(CodeReader codeReader) {
-    return new EndTokenMatcher(codeReader);
+  protected int endOffset(CodeReader codeReader) {
+    return indexOf(codeReader, endChars, 1);
   }
 
   @Override
@@ -19,7 +19,6 @@ package org.sonar.plugins.html.lex;
 import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.sslr.channel.CodeReader;
-import org.sonar.sslr.channel.EndMatcher;
 
 /**
  * Tokenizer for directives.
@@ -45,10 +44,10 @@ class DirectiveTokenizer extends ElementTokenizer {
   }
 
   @Override
-  protected EndMatcher getEndMatcher(CodeReader codeReader) {
+  protected int endOffset(CodeReader codeReader) {
     if (codeAware) {
-      return new CodeAwareEndMatcher(codeReader);
+      return endOffset(codeReader, new CodeAwareEndMatcher(codeReader));
     }
-    return super.getEndMatcher(codeReader);
+    return super.endOffset(codeReader);
   }
 }
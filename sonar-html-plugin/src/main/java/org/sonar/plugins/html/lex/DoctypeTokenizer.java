@@ -38,7 +38,7 @@ class DoctypeTokenizer extends AbstractTokenizer<List<Node>> {
     parseToken((DirectiveNode) node);
   }
 
-  private static void parseToken(DirectiveNode node) {
+  static void parseToken(DirectiveNode node) {
     String code = node.getCode();
     StreamTokenizer tokenizer = new StreamTokenizer(new StringReader(code));
     tokenizer.quoteChar('"');
@@ -17,7 +17,6 @@
 package org.sonar.plugins.html.lex;
 
 import org.sonar.sslr.channel.CodeReader;
-import org.sonar.sslr.channel.EndMatcher;
 
 /*
  * Detects the end `>` of an HTML element, on top of the basic `<` ... `>` nesting count from
@@ -42,7 +41,7 @@ import org.sonar.sslr.channel.EndMatcher;
  *   The scope closes on the matching `%>`. This is what stops Ruby/Java char literals like
  *   `'x'` inside `<%= ... %>` from being mistaken for HTML attribute quotes.
  */
-class HtmlElementEndMatcher implements EndMatcher {
+class HtmlElementEndMatcher implements AbstractTokenizer.LookaheadEndMatcher {
 
   private final CodeReader codeReader;
   private int activeQuote;
@@ -56,7 +55,8 @@ class HtmlElementEndMatcher implements EndMatcher {
   }
 
   @Override
-  public boolean match(int endFlag) {
+  public boolean match(int offset) {
+    char endFlag = codeReader.charAt(offset);
     boolean enteringJsp = previousChar == '<' && endFlag == '%' && jspNesting == 0;
     boolean exitingJsp = previousChar == '%' && endFlag == '>' && jspNesting > 0;
 
@@ -73,7 +73,7 @@ class HtmlElementEndMatcher implements EndMatcher {
         jspNesting--;
       }
     } else {
-      updateQuoteState(endFlag);
+      updateQuoteState(endFlag, offset);
       if (activeQuote == 0) {
         if (endFlag == '<') {
           nesting++;
@@ -91,7 +91,7 @@ class HtmlElementEndMatcher implements EndMatcher {
     return result;
   }
 
-  private void updateQuoteState(int endFlag) {
+  private void updateQuoteState(char endFlag, int offset) {
     if (endFlag == '"') {
       if (activeQuote == 0) {
         activeQuote = endFlag;
@@ -101,15 +101,14 @@ class HtmlElementEndMatcher implements EndMatcher {
     } else if (endFlag == '\'') {
       if (activeQuote == 0 && previousNonWhitespace == '=') {
         activeQuote = endFlag;
-      } else if (activeQuote == endFlag && isAttributeTerminator(charAfterPeek())) {
+      } else if (activeQuote == endFlag && isAttributeTerminator(charAfter(offset))) {
         activeQuote = 0;
       }
     }
   }
 
-  private char charAfterPeek() {
-    char[] lookahead = codeReader.peek(2);
-    return lookahead.length >= 2 ? lookahead[1] : '\0';
+  private char charAfter(int offset) {
+    return offset + 1 < codeReader.length() ? codeReader.charAt(offset + 1) : '\0';
   }
 
   private static boolean isAttributeTerminator(char c) {
@@ -0,0 +1,96 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import org.sonar.plugins.html.node.NameSymbol;
+
+/**
+ * The names of the tags and attributes of a file, each interned once: a name is looked up from the characters of the
+ * code, so that a name already found is not copied out of the code again.
+ */
+final class NameTable {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private NameSymbol[] symbols = new NameSymbol[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * The symbol of the name between the indexes of the code.
+   */
+  NameSymbol intern(CharSequence code, int start, int end) {
+    int mask = symbols.length - 1;
+    int i = spread(hashCode(code, start, end)) & mask;
+    NameSymbol symbol;
+    while ((symbol = symbols[i]) != null) {
+      if (matches(symbol.getName(), code, start, end)) {
+        return symbol;
+      }
+      i = (i + 1) & mask;
+    }
+    symbol = new NameSymbol(code.subSequence(start, end).toString());
+    symbols[i] = symbol;
+    size++;
+    if (size * 2 > symbols.length) {
+      grow();
+    }
+    return symbol;
+  }
+
+  private void grow() {
+    NameSymbol[] previous = symbols;
+    symbols = new NameSymbol[previous.length * 2];
+    int mask = symbols.length - 1;
+    for (NameSymbol symbol : previous) {
+      if (symbol != null) {
+        int i = spread(symbol.getName().hashCode()) & mask;
+        while (symbols[i] != null) {
+          i = (i + 1) & mask;
+        }
+        symbols[i] = symbol;
+      }
+    }
+  }
+
+  /**
+   * Same as {@link String#hashCode()} for the characters between the indexes.
+   */
+  private static int hashCode(CharSequence code, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + code.charAt(i);
+    }
+    return hash;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(String name, CharSequence code, int start, int end) {
+    if (name.length() != end - start) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != code.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -19,7 +19,6 @@ package org.sonar.plugins.html.lex;
 import java.util.List;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.sslr.channel.CodeReader;
-import org.sonar.sslr.channel.EndMatcher;
 
 public class NormalElementTokenizer extends ElementTokenizer {
 
@@ -40,8 +39,8 @@ public class NormalElementTokenizer extends ElementTokenizer {
   }
 
   @Override
-  protected EndMatcher getEndMatcher(CodeReader codeReader) {
-    return new HtmlElementEndMatcher(codeReader);
+  protected int endOffset(CodeReader codeReader) {
+    return endOffset(codeReader, new HtmlElementEndMatcher(codeReader));
   }
 
   /**
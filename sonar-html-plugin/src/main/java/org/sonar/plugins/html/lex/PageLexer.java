@@ -16,20 +16,26 @@
  */
 package org.sonar.plugins.html.lex;
 
+import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Set;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.jfr.LexEvent;
+import org.sonar.plugins.html.jfr.PhpEmbeddedExpansionEvent;
+import org.sonar.plugins.html.node.HtmlElement;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.AnalysisProfiler;
+import org.sonar.plugins.html.visitor.FileTimeBudget;
 import org.sonar.sslr.channel.Channel;
 import org.sonar.sslr.channel.ChannelDispatcher;
 import org.sonar.sslr.channel.CodeReader;
@@ -41,6 +47,8 @@ import org.sonar.sslr.channel.CodeReader;
 @SuppressWarnings("unchecked")
 public class PageLexer {
 
+  static final String LEXING = "lexing";
+
   /**
    * The order of the tokenizers is significant, as they are processed in this order.
    * <p>
@@ -69,49 +77,61 @@ public class PageLexer {
     /* Text (for everything else) */
     new TextTokenizer());
 
+  /**
+   * Tries, at each position, only the tokenizers which may start with the next characters.
+   */
+  private static final TokenizerDispatcher DISPATCHER = new TokenizerDispatcher(tokenizers);
+
   /**
    * Void elements can't have any content
    * See https://html.spec.whatwg.org/multipage/syntax.html#void-elements
    */
-  static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area", "base", "br", "col", "embed",
-    "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"));
-
-  private static final Set<String> METADATA_CONTENT = new HashSet<>(Arrays.asList("base", "link", "meta", "noscript",
-    "script", "style", "template", "title"));
-
-  private static final Set<String> PARAGRAPH_CLOSING = new HashSet<>(Arrays.asList("address", "article", "aside",
-    "blockquote", "details", "div", "dl", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4",
-    "h5", "h6", "header", "hr", "main", "nav", "ol", "p", "pre", "section", "table", "ul"));
-
-  private static final Set<String> RUBY_CLOSING = new HashSet<>(Arrays.asList("rtc", "rb", "rp", "rt"));
-
-  private static final Set<String> TABLE_DESCENDANTS = new HashSet<>(Arrays.asList("caption", "colgroup", "thead",
-    "tbody", "tr", "tfoot"));
-
-  private static final Set<String> HTML_ELEMENTS = new HashSet<>(Arrays.asList("a", "abbr", "acronym", "address",
-    "applet", "area", "article", "aside", "audio", "b", "base", "basefont", "bdi", "bdo", "bgsound", "big", "blink",
-    "blockquote", "body", "br", "button", "canvas", "caption", "center", "cite", "code", "col", "colgroup", "content",
-    "data", "datalist", "dd", "del", "details", "dfn", "dialog", "dir", "div", "dl", "dt", "em", "embed", "fieldset",
-    "figcaption", "figure", "font", "footer", "form", "frame", "frameset", "h1", "h2", "h3", "h4", "h5", "h6", "head",
-    "header", "hgroup", "hr", "html", "i", "iframe", "img", "input", "ins", "isindex", "kbd", "keygen", "label",
-    "legend", "li", "link", "listing", "main", "map", "mark", "marquee", "menu", "menuitem", "meta", "meter", "nav",
-    "nobr", "noframes", "noscript", "object", "ol", "optgroup", "option", "output", "p", "param", "picture",
-    "plaintext", "pre", "progress", "q", "rb", "rp", "rt", "rtc", "ruby", "s", "samp", "script", "section", "select",
-    "shadow", "slot", "small", "source", "spacer", "span", "strike", "strong", "style", "sub", "summary", "sup", "table",
-    "tbody", "td", "template", "textarea", "tfoot", "th", "thead", "time", "title", "tr", "track", "tt", "u", "ul",
-    "var", "video", "wbr", "xmp"));
+  static final Set<HtmlElement> VOID_ELEMENTS = EnumSet.of(HtmlElement.AREA, HtmlElement.BASE, HtmlElement.BR,
+    HtmlElement.COL, HtmlElement.EMBED, HtmlElement.HR, HtmlElement.IMG, HtmlElement.INPUT, HtmlElement.LINK,
+    HtmlElement.META, HtmlElement.PARAM, HtmlElement.SOURCE, HtmlElement.TRACK, HtmlElement.WBR);
+
+  private static final Set<HtmlElement> METADATA_CONTENT = EnumSet.of(HtmlElement.BASE, HtmlElement.LINK,
+    HtmlElement.META, HtmlElement.NOSCRIPT, HtmlElement.SCRIPT, HtmlElement.STYLE, HtmlElement.TEMPLATE,
+    HtmlElement.TITLE);
+
+  private static final Set<HtmlElement> PARAGRAPH_CLOSING = EnumSet.of(HtmlElement.ADDRESS, HtmlElement.ARTICLE,
+    HtmlElement.ASIDE, HtmlElement.BLOCKQUOTE, HtmlElement.DETAILS, HtmlElement.DIV, HtmlElement.DL,
+    HtmlElement.FIELDSET, HtmlElement.FIGCAPTION, HtmlElement.FIGURE, HtmlElement.FOOTER, HtmlElement.FORM,
+    HtmlElement.H1, HtmlElement.H2, HtmlElement.H3, HtmlElement.H4, HtmlElement.H5, HtmlElement.H6, HtmlElement.HEADER,
+    HtmlElement.HR, HtmlElement.MAIN, HtmlElement.NAV, HtmlElement.OL, HtmlElement.P, HtmlElement.PRE,
+    HtmlElement.SECTION, HtmlElement.TABLE, HtmlElement.UL);
+
+  private static final Set<HtmlElement> RUBY_CLOSING = EnumSet.of(HtmlElement.RTC, HtmlElement.RB, HtmlElement.RP,
+    HtmlElement.RT);
+
+  private static final Set<HtmlElement> TABLE_DESCENDANTS = EnumSet.of(HtmlElement.CAPTION, HtmlElement.COLGROUP,
+    HtmlElement.THEAD, HtmlElement.TBODY, HtmlElement.TR, HtmlElement.TFOOT);
+
+  // the elements an end tag closes on its way to the element it ends, when they are not well nested: all the known
+  // elements, but the foreign svg and math roots and the image, noembed and search names
+  private static final Set<HtmlElement> HTML_ELEMENTS = EnumSet.complementOf(EnumSet.of(HtmlElement.IMAGE,
+    HtmlElement.MATH, HtmlElement.NOEMBED, HtmlElement.SEARCH, HtmlElement.SVG, HtmlElement.UNKNOWN));
+
+  private final boolean stateMachine;
+
+  public PageLexer() {
+    this(false);
+  }
+
+  /**
+   * @param stateMachine whether the source is tokenized by {@link StateMachineLexer} rather than by the SSLR channels,
+   *                     which produce the same nodes
+   */
+  public PageLexer(boolean stateMachine) {
+    this.stateMachine = stateMachine;
+  }
 
   /**
    * Parse a nested node.
    */
-  @SuppressWarnings("rawtypes")
   public List<Node> nestedParse(CodeReader reader) {
     List<Node> nodeList = new ArrayList<>();
-    for (AbstractTokenizer tokenizer : (List<AbstractTokenizer>) tokenizers) {
-      if (tokenizer.consume(reader, nodeList)) {
-        break;
-      }
-    }
+    DISPATCHER.consume(reader, nodeList);
     return nodeList;
   }
 
@@ -120,32 +140,105 @@ public class PageLexer {
    * HTML found inside PHP string literals is also extracted and included in the returned list.
    */
   public List<Node> parse(Reader reader) {
+    return parse(read(reader), null, AnalysisProfiler.DISABLED, FileTimeBudget.UNLIMITED);
+  }
 
-    // CodeReader reads the file stream
-    CodeReader codeReader = new CodeReader(reader);
+  /**
+   * Same as {@link #parse(CharSequence, String, AnalysisProfiler, FileTimeBudget)}, for a source which is first read
+   * into a string of its own.
+   */
+  public List<Node> parse(Reader reader, @Nullable String path, AnalysisProfiler profiler, FileTimeBudget budget) {
+    return parse(read(reader), path, profiler, budget);
+  }
 
-    // ArrayList collects the nodes
-    List<Node> nodeList = new ArrayList<>();
+  /**
+   * Same as {@link #parse(Reader)}, reporting the time spent in each step to the profiler and as JFR events, and giving
+   * up with a {@link org.sonar.plugins.html.visitor.FileTimeBudgetExceededException} once the time budget of the file is exceeded.
+   * <p>
+   * The code of the nodes and the values of their attributes are regions of {@code source}, which is not copied when it
+   * is a string: given the content the analysis of the file already holds, the nodes do not keep another copy of it.
+   *
+   * @param path path of the parsed file, reported in the JFR events
+   */
+  public List<Node> parse(CharSequence source, @Nullable String path, AnalysisProfiler profiler, FileTimeBudget budget) {
+    LexEvent lexEvent = new LexEvent();
+    lexEvent.begin();
+    long start = profiler.start();
 
-    // ChannelDispatcher manages the tokenizers
-    ChannelDispatcher<List<Node>> channelDispatcher = ChannelDispatcher.builder().addChannels((Channel[]) tokenizers.toArray(new Channel[tokenizers.size()])).build();
-    channelDispatcher.consume(codeReader, nodeList);
+    String text = source.toString();
+    List<Node> nodeList = stateMachine ? new StateMachineLexer(text, budget).tokenize() : tokenize(text, budget);
+    profiler.stopPhase("lex", start);
+    lexEvent.report(path, nodeList.size());
 
+    PhpEmbeddedExpansionEvent expansionEvent = new PhpEmbeddedExpansionEvent();
+    expansionEvent.begin();
+    start = profiler.start();
     List<Node> expanded = PhpEmbeddedHtmlExtractor.expand(nodeList);
+    profiler.stopPhase("PHP expansion", start);
+    expansionEvent.report(path, nodeList.size(), expanded.size() - nodeList.size());
+    budget.check(LEXING);
+
+    start = profiler.start();
     createNodeHierarchy(expanded);
+    profiler.stopPhase("hierarchy build", start);
 
     return expanded;
   }
 
+  private static List<Node> tokenize(String source, FileTimeBudget budget) {
+    // CodeReader reads a buffer of its own, dropped once the source is lexed, while the nodes keep regions of the source
+    CodeReader codeReader = new CodeReader(source);
+
+    // SourceNodeList collects the nodes
+    List<Node> nodeList = new SourceNodeList(source);
+
+    // ChannelDispatcher manages the tokenizers
+    List<Channel<List<Node>>> channels = new ArrayList<>();
+    if (!budget.isUnlimited()) {
+      channels.add(new TimeBudgetChannel(budget));
+    }
+    channels.add(DISPATCHER);
+    ChannelDispatcher<List<Node>> channelDispatcher = ChannelDispatcher.builder().addChannels(channels.toArray(new Channel[channels.size()])).build();
+    channelDispatcher.consume(codeReader, nodeList);
+    return nodeList;
+  }
+
+  private static String read(Reader reader) {
+    StringWriter writer = new StringWriter();
+    try {
+      reader.transferTo(writer);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the source", e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Consumes nothing: placed before the tokenizers, it checks the time budget before each token.
+   */
+  private static final class TimeBudgetChannel extends Channel<List<Node>> {
+
+    private final FileTimeBudget budget;
+
+    TimeBudgetChannel(FileTimeBudget budget) {
+      this.budget = budget;
+    }
+
+    @Override
+    public boolean consume(CodeReader code, List<Node> output) {
+      budget.check(LEXING);
+      return false;
+    }
+
+  }
+
   /**
    * Parse a source string into a list of tokens without building parent/child relations.
    */
   List<Node> parseWithoutHierarchy(String source) {
-    CodeReader codeReader = new CodeReader(new StringReader(source));
-    List<Node> nodeList = new ArrayList<>();
-    ChannelDispatcher<List<Node>> channelDispatcher = ChannelDispatcher.builder()
-      .addChannels((Channel[]) tokenizers.toArray(new Channel[tokenizers.size()]))
-      .build();
+    CodeReader codeReader = new CodeReader(source);
+    List<Node> nodeList = new SourceNodeList(source);
+    ChannelDispatcher<List<Node>> channelDispatcher = ChannelDispatcher.builder().addChannels(DISPATCHER).build();
     channelDispatcher.consume(codeReader, nodeList);
     return nodeList;
   }
@@ -168,7 +261,7 @@ public class PageLexer {
         if (!element.isEndElement()) {
           TagNode parent = openElementStack.peek();
           while (parent != null
-                  && (shouldCloseParent(nodeName(element), nodeName(parent)) || isVoidElement(parent))) {
+                  && (shouldCloseParent(element.getElement(), parent.getElement()) || isVoidElement(parent))) {
             openElementStack.pop();
             parent = openElementStack.peek();
           }
@@ -195,53 +288,49 @@ public class PageLexer {
   }
 
   private static boolean isVoidElement(TagNode parent) {
-    return VOID_ELEMENTS.contains(nodeName(parent));
+    return VOID_ELEMENTS.contains(parent.getElement());
   }
 
   private static boolean isHtmlElement(TagNode parent) {
-    return HTML_ELEMENTS.contains(nodeName(parent));
+    return HTML_ELEMENTS.contains(parent.getElement());
   }
 
   private static boolean isEndElement(TagNode element) {
     return element.isEndElement() || element.hasEnd();
   }
 
-  private static boolean shouldCloseParent(String element, String parent) {
+  private static boolean shouldCloseParent(HtmlElement element, HtmlElement parent) {
     // see https://www.w3.org/TR/html52/syntax.html#optional-start-and-end-tags
     switch (parent) {
-      case "head":
+      case HEAD:
         return !METADATA_CONTENT.contains(element);
-      case "li":
-        return "li".equals(element);
-      case "dt", "dd":
-        return "dt".equals(element) || "dd".equals(element);
-      case "p":
+      case LI:
+        return element == HtmlElement.LI;
+      case DT, DD:
+        return element == HtmlElement.DT || element == HtmlElement.DD;
+      case P:
         // note that we don't validate the parent of the <p> as described in spec
         return PARAGRAPH_CLOSING.contains(element);
-      case "rb", "rp", "rt":
+      case RB, RP, RT:
         return RUBY_CLOSING.contains(element);
-      case "rtc":
-        return "rb".equals(element) || "rtc".equals(element);
-      case "optgroup":
-        return "optgroup".equals(element);
-      case "option":
-        return "option".equals(element) || "optgroup".equals(element);
-      case "colgroup":
-        return !("col".equals(element) || "template".equals(element));
-      case "caption":
+      case RTC:
+        return element == HtmlElement.RB || element == HtmlElement.RTC;
+      case OPTGROUP:
+        return element == HtmlElement.OPTGROUP;
+      case OPTION:
+        return element == HtmlElement.OPTION || element == HtmlElement.OPTGROUP;
+      case COLGROUP:
+        return !(element == HtmlElement.COL || element == HtmlElement.TEMPLATE);
+      case CAPTION:
         return TABLE_DESCENDANTS.contains(element);
-      case "thead", "tbody":
-        return "tbody".equals(element) || "tfoot".equals(element);
-      case "tr":
-        return !("td".equals(element) || "th".equals(element));
-      case "td", "th":
-        return "td".equals(element) || "th".equals(element);
+      case THEAD, TBODY:
+        return element == HtmlElement.TBODY || element == HtmlElement.TFOOT;
+      case TR:
+        return !(element == HtmlElement.TD || element == HtmlElement.TH);
+      case TD, TH:
+        return element == HtmlElement.TD || element == HtmlElement.TH;
       default:
         return false;
     }
   }
-
-  private static String nodeName(TagNode node) {
-    return node.getNodeName().toLowerCase(Locale.ROOT);
-  }
 }
@@ -631,7 +631,7 @@ final class PhpEmbeddedHtmlExtractor {
   }
 
   private static boolean isVoidElement(TagNode tag) {
-    return PageLexer.VOID_ELEMENTS.contains(tag.getNodeName().toLowerCase(Locale.ROOT));
+    return PageLexer.VOID_ELEMENTS.contains(tag.getElement());
   }
 
   private static TagNode syntheticEndTag(TagNode open) {
@@ -0,0 +1,51 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.util.ArrayList;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.sslr.channel.CodeReader;
+
+/**
+ * The nodes read from a source, along with the source and the names found in it: the tokenizers set the code of the
+ * nodes as regions of the source rather than as copies, and intern the names of the tags and attributes.
+ */
+final class SourceNodeList extends ArrayList<Node> {
+
+  private final transient String source;
+  private final transient NameTable names = new NameTable();
+
+  SourceNodeList(String source) {
+    this.source = source;
+  }
+
+  String source() {
+    return source;
+  }
+
+  NameTable names() {
+    return names;
+  }
+
+  /**
+   * Index in the source of the current position of the reader, which reads the whole source.
+   */
+  int index(CodeReader codeReader) {
+    return source.length() - codeReader.length();
+  }
+
+}
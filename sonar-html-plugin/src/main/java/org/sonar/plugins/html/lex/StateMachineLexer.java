@@ -0,0 +1,402 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.ExpressionNode;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.FileTimeBudget;
+
+/**
+ * Tokenizer working directly over the characters of the source, as an explicit state machine, instead of the SSLR
+ * channels of {@link PageLexer}.
+ * <p>
+ * It produces the same nodes as the channels, code and positions included: the start of each token is recognized in
+ * the order of the channels, and the end of each token is found by the same rules as the {@code EndMatcher} of the
+ * corresponding channel. As with {@code CodeReader}, a token whose end delimiter is cut by the end of the file gets
+ * a {@code (char) -1} in its code for each missing character of the delimiter.
+ */
+final class StateMachineLexer {
+
+  private static final char EOF = (char) -1;
+
+  private static final String HTML_COMMENT_START = "<!--";
+  private static final String HTML_COMMENT_END = "-->";
+  private static final String JSP_COMMENT_START = "<%--";
+  private static final String JSP_COMMENT_END = "--%>";
+  private static final String TWIG_COMMENT_START = "{#";
+  private static final String TWIG_COMMENT_END = "#}";
+  private static final String DOCTYPE_START = "<!DOCTYPE";
+  private static final String DOCTYPE_END = ">";
+  private static final String XML_DIRECTIVE_START = "<?";
+  private static final String XML_DIRECTIVE_END = "?>";
+  private static final String JSP_DIRECTIVE_START = "<%@";
+  private static final String JSP_EXPRESSION_START = "<%";
+  private static final String JSP_END = "%>";
+  private static final String CDATA_START = "<![CDATA[";
+  private static final String CDATA_END = "]]>";
+
+  private final String source;
+  private final char[] buffer;
+  private final int length;
+  private final FileTimeBudget budget;
+  private final NameTable names = new NameTable();
+
+  private int position;
+  private int line = 1;
+  private int column;
+  private int nesting;
+
+  StateMachineLexer(String source, FileTimeBudget budget) {
+    this.source = source;
+    this.buffer = source.toCharArray();
+    this.length = buffer.length;
+    this.budget = budget;
+  }
+
+  /**
+   * Tokenizes the whole source, without building parent/child relations.
+   */
+  List<Node> tokenize() {
+    List<Node> nodes = new ArrayList<>();
+    while (position < length) {
+      budget.check(PageLexer.LEXING);
+      nodes.add(nextToken(nodes, true));
+    }
+    return nodes;
+  }
+
+  /**
+   * Reads the token starting at the current position.
+   *
+   * @param nodes the tokens read so far, which tell whether a script is being read
+   * @param parseTags whether the name and attributes of tags are parsed, which is not needed for the tags nested in
+   *                  another tag, as only their code is kept
+   */
+  private Node nextToken(List<Node> nodes, boolean parseTags) {
+    char first = buffer[position];
+    if (first == '<') {
+      return markup(nodes, parseTags);
+    }
+    if (first == '{' && startsWith(TWIG_COMMENT_START)) {
+      return comment(TWIG_COMMENT_START, TWIG_COMMENT_END, false);
+    }
+    return text(nodes);
+  }
+
+  private Node markup(List<Node> nodes, boolean parseTags) {
+    if (startsWith(HTML_COMMENT_START)) {
+      return comment(HTML_COMMENT_START, HTML_COMMENT_END, true);
+    }
+    if (startsWith(JSP_COMMENT_START)) {
+      return comment(JSP_COMMENT_START, JSP_COMMENT_END, false);
+    }
+    if (startsWith(DOCTYPE_START)) {
+      DirectiveNode node = new DirectiveNode();
+      read(node, nestedDelimiterEnd(DOCTYPE_START, DOCTYPE_END), DOCTYPE_END.length());
+      if (parseTags) {
+        DoctypeTokenizer.parseToken(node);
+      }
+      return node;
+    }
+    if (startsWith(XML_DIRECTIVE_START)) {
+      return tag(new DirectiveNode(), codeAwareDelimiterEnd(XML_DIRECTIVE_START, XML_DIRECTIVE_END), XML_DIRECTIVE_END.length(), parseTags);
+    }
+    if (startsWith(JSP_DIRECTIVE_START)) {
+      return tag(new DirectiveNode(), nestedDelimiterEnd(JSP_DIRECTIVE_START, JSP_END), JSP_END.length(), parseTags);
+    }
+    if (startsWith(JSP_EXPRESSION_START)) {
+      return read(new ExpressionNode(), nestedDelimiterEnd(JSP_EXPRESSION_START, JSP_END), JSP_END.length());
+    }
+    if (startsWith(CDATA_START)) {
+      TagNode node = new TagNode();
+      node.setNodeName("![CDATA[");
+      return read(node, nestedDelimiterEnd(CDATA_START, CDATA_END), CDATA_END.length());
+    }
+    if (isTagStart()) {
+      return tag(new TagNode(), elementEnd(), 1, parseTags);
+    }
+    return text(nodes);
+  }
+
+  /**
+   * Reads the token nested in a tag at the given index of its code.
+   */
+  private static TagParser.NestedToken nestedToken(CharSequence code, int index) {
+    StateMachineLexer nested = new StateMachineLexer(code.toString(), FileTimeBudget.UNLIMITED);
+    nested.position = index;
+    Node node = nested.nextToken(List.of(), false);
+    return new TagParser.NestedToken(node.getCode(), nested.position);
+  }
+
+  private Node comment(String startDelimiter, String endDelimiter, boolean html) {
+    CommentNode node = new CommentNode();
+    node.setHtml(html);
+    node.setStartDelimiter(startDelimiter);
+    node.setEndDelimiter(endDelimiter);
+    int end = source.indexOf(endDelimiter, position + 1);
+    return read(node, end < 0 ? length : end, endDelimiter.length());
+  }
+
+  private Node tag(TagNode node, int end, int endDelimiterLength, boolean parseTags) {
+    read(node, end, endDelimiterLength);
+    if (parseTags) {
+      TagParser.parse(node, names, StateMachineLexer::nestedToken);
+    }
+    return node;
+  }
+
+  private Node text(List<Node> nodes) {
+    char[] closingTag = TextTokenizer.rawTextClosingTag(nodes);
+    int end = position + 1;
+    if (closingTag != null) {
+      while (end < length && !isClosingTag(end, closingTag)) {
+        end++;
+      }
+    } else {
+      end = source.indexOf('<', end);
+      if (end < 0) {
+        end = length;
+      }
+    }
+    return read(new TextNode(), end, 0);
+  }
+
+  private boolean isClosingTag(int index, char[] closingTag) {
+    return buffer[index] == '<'
+      && regionMatches(index, closingTag, true)
+      && TextTokenizer.isTagNameEnd(charAt(index + closingTag.length));
+  }
+
+  /**
+   * Sets the code and the positions of the node, which ends with the end delimiter found at {@code end}, and moves
+   * past it.
+   */
+  private Node read(Node node, int end, int endDelimiterLength) {
+    node.setStartLinePosition(line);
+    node.setStartColumnPosition(column);
+    int codeEnd = end + endDelimiterLength;
+    if (codeEnd > length) {
+      node.setCode(source.substring(position, length) + String.valueOf(EOF).repeat(codeEnd - length));
+    } else {
+      node.setCode(source, position, codeEnd);
+    }
+    moveTo(Math.min(codeEnd, length));
+    node.setEndLinePosition(line);
+    node.setEndColumnPosition(column);
+    return node;
+  }
+
+  private void moveTo(int target) {
+    for (int i = position; i < target; i++) {
+      char c = buffer[i];
+      if (c == '\n' || (c == '\r' && (i + 1 >= length || buffer[i + 1] != '\n'))) {
+        line++;
+        column = 0;
+      } else {
+        column++;
+      }
+    }
+    position = target;
+  }
+
+  /**
+   * Same rules as the default end matcher of {@link AbstractTokenizer}: the end delimiters in double quotes are
+   * ignored, and the start delimiters open nested constructs.
+   */
+  private int nestedDelimiterEnd(String startDelimiter, String endDelimiter) {
+    boolean quoting = false;
+    nesting = 0;
+    for (int i = position + 1; i < length; i++) {
+      if (buffer[i] == '"') {
+        quoting = !quoting;
+      }
+      if (!quoting && closes(i, startDelimiter, endDelimiter)) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Same rules as {@link AbstractTokenizer.CodeAwareEndMatcher}: the end delimiters in string literals are ignored.
+   */
+  private int codeAwareDelimiterEnd(String startDelimiter, String endDelimiter) {
+    final int normal = 0;
+    final int lineComment = 1;
+    final int blockComment = 2;
+    int state = normal;
+    char quote = 0;
+    char previous = 0;
+    boolean escaped = false;
+    nesting = 0;
+    for (int i = position + 1; i < length; i++) {
+      char c = buffer[i];
+      boolean closed = false;
+      if (state == lineComment) {
+        if (c == '\n') {
+          state = normal;
+        }
+        closed = closes(i, startDelimiter, endDelimiter);
+      } else if (state == blockComment) {
+        if (previous == '*' && c == '/') {
+          state = normal;
+        }
+        closed = closes(i, startDelimiter, endDelimiter);
+      } else if (quote != 0) {
+        if (c == quote && !escaped) {
+          quote = 0;
+        }
+      } else if (previous == '/' && c == '/') {
+        state = lineComment;
+      } else if (previous == '/' && c == '*') {
+        state = blockComment;
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else {
+        closed = closes(i, startDelimiter, endDelimiter);
+      }
+      escaped = !escaped && c == '\\';
+      previous = c;
+      if (closed) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  private boolean closes(int index, String startDelimiter, String endDelimiter) {
+    if (regionMatches(index, startDelimiter, true)) {
+      nesting++;
+    } else if (regionMatches(index, endDelimiter, false)) {
+      nesting--;
+      return nesting < 0;
+    }
+    return false;
+  }
+
+  /**
+   * Same rules as {@link HtmlElementEndMatcher}.
+   */
+  private int elementEnd() {
+    char activeQuote = 0;
+    char previous = 0;
+    char previousNonWhitespace = 0;
+    int tagNesting = 0;
+    int jspNesting = 0;
+    for (int i = position + 1; i < length; i++) {
+      char c = buffer[i];
+      boolean closed = false;
+      if (previous == '<' && c == '%' && jspNesting == 0) {
+        jspNesting++;
+        if (activeQuote == 0) {
+          tagNesting--;
+        }
+      } else if (jspNesting > 0) {
+        if (previous == '%' && c == '>') {
+          jspNesting--;
+        }
+      } else {
+        if (c == '"') {
+          if (activeQuote == 0) {
+            activeQuote = c;
+          } else if (activeQuote == c) {
+            activeQuote = 0;
+          }
+        } else if (c == '\'') {
+          if (activeQuote == 0 && previousNonWhitespace == '=') {
+            activeQuote = c;
+          } else if (activeQuote == c && isAttributeTerminator(i + 1 < length ? buffer[i + 1] : '\0')) {
+            activeQuote = 0;
+          }
+        }
+        if (activeQuote == 0) {
+          if (c == '<') {
+            tagNesting++;
+          } else if (c == '>') {
+            tagNesting--;
+            closed = tagNesting < 0;
+          }
+        }
+      }
+      previous = c;
+      if (!Character.isWhitespace(c)) {
+        previousNonWhitespace = c;
+      }
+      if (closed) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  private static boolean isAttributeTerminator(char c) {
+    return c == '\0' || c == '>' || c == '/' || c == '=' || c == '"' || Character.isWhitespace(c);
+  }
+
+  private boolean isTagStart() {
+    int index = position + 1;
+    if (charAt(index) == '/' || charAt(index) == '!') {
+      index++;
+    }
+    char nameStartChar = charAt(index);
+    return NormalElementTokenizer.isValidSingleCharCodeNameStartChar(nameStartChar)
+      || NormalElementTokenizer.isValidSurrogatePairNameStartChar(nameStartChar, charAt(index + 1));
+  }
+
+  private char charAt(int index) {
+    return index < length ? buffer[index] : EOF;
+  }
+
+  private boolean startsWith(String token) {
+    return regionMatches(position, token, true);
+  }
+
+  private boolean regionMatches(int index, String token, boolean ignoreCase) {
+    if (index + token.length() > length) {
+      return false;
+    }
+    for (int i = 0; i < token.length(); i++) {
+      if (!sameChar(buffer[index + i], token.charAt(i), ignoreCase)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean regionMatches(int index, char[] token, boolean ignoreCase) {
+    if (index + token.length > length) {
+      return false;
+    }
+    for (int i = 0; i < token.length; i++) {
+      if (!sameChar(buffer[index + i], token[i], ignoreCase)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean sameChar(char c, char expected, boolean ignoreCase) {
+    return c == expected || (ignoreCase && Character.toLowerCase(c) == Character.toLowerCase(expected));
+  }
+
+}
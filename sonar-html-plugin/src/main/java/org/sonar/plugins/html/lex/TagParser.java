@@ -0,0 +1,351 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.sonar.plugins.html.node.Attribute;
+import org.sonar.plugins.html.node.TagNode;
+
+/**
+ * Reads the name and the attributes of a tag from its code, in a single scan of the code: the names are substrings of
+ * the code, and the values regions of it, only copied when they contain escaped quotes to unescape.
+ * <p>
+ * The lines and columns are tracked relative to the start of the tag, and the attributes get their position in the
+ * file from the position of the tag.
+ * <p>
+ * Only the name is read while lexing: the parser then stays on the tag as the reader of its attributes, and resumes
+ * the scan where the name ends when the attributes are first accessed.
+ */
+final class TagParser implements Consumer<List<Attribute>> {
+
+  /**
+   * Reads the token starting at an index of the code of a tag, for the tags nested in a tag, which are added to it
+   * as attributes.
+   */
+  @FunctionalInterface
+  interface NestedTokenReader {
+    NestedToken read(CharSequence code, int index);
+  }
+
+  /**
+   * @param end index of the code of the tag following the nested token
+   */
+  record NestedToken(String code, int end) {
+  }
+
+  private enum State {
+    BEFORE_NODE_NAME, BEFORE_ATTRIBUTE_NAME, BEFORE_ATTRIBUTE_VALUE
+  }
+
+  private final TagNode element;
+  private final NameTable names;
+  private final NestedTokenReader nestedTokenReader;
+  private final CharSequence code;
+  private final int codeLength;
+  private final int startLine;
+  private final int startColumn;
+  private State state = State.BEFORE_NODE_NAME;
+  private int index;
+  private int relativeLine = 1;
+  private int relativeColumn;
+  private List<Attribute> attributes;
+
+  private TagParser(TagNode element, NameTable names, NestedTokenReader nestedTokenReader) {
+    this.element = element;
+    this.names = names;
+    this.nestedTokenReader = nestedTokenReader;
+    this.code = element.getCodeSequence();
+    this.codeLength = code.length();
+    this.startLine = element.getStartLinePosition();
+    this.startColumn = element.getStartColumnPosition();
+  }
+
+  /**
+   * Reads the name of the tag, and defers the reading of its attributes to their first access.
+   *
+   * @param names the names of the file, in which the names of the tag and of its attributes are interned
+   */
+  static void parse(TagNode element, NameTable names, NestedTokenReader nestedTokenReader) {
+    TagParser parser = new TagParser(element, names, nestedTokenReader);
+    while (parser.index < parser.codeLength && parser.state == State.BEFORE_NODE_NAME) {
+      parser.next();
+    }
+    if (parser.hasAttributes()) {
+      element.setAttributeReader(parser);
+    }
+  }
+
+  /**
+   * Whether some attribute may follow the name: the scan only pops the other characters, as with the end of
+   * {@code </div>} or {@code <br />}, for which no reader is kept.
+   */
+  private boolean hasAttributes() {
+    for (int i = index; i < codeLength; i++) {
+      char c = code.charAt(i);
+      if (!Character.isWhitespace(c) && c != '=' && c != '>' && c != '/' && c != '%' && c != '@' && c != '{' && c != '}') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the attributes following the name of the tag.
+   */
+  @Override
+  public void accept(List<Attribute> attributes) {
+    this.attributes = attributes;
+    while (index < codeLength) {
+      next();
+    }
+  }
+
+  private void next() {
+    char c = code.charAt(index);
+    if (Character.isWhitespace(c)) {
+      pop();
+    } else if (c == '=') {
+      state = State.BEFORE_ATTRIBUTE_VALUE;
+      pop();
+    } else if (c == '<') {
+      if (state == State.BEFORE_ATTRIBUTE_NAME) {
+        nestedTag();
+      } else {
+        pop();
+      }
+    } else if (c == '>' || c == '/' || c == '%' || c == '@' || c == '{' || c == '}') {
+      pop();
+    } else {
+      parseToken();
+      state = State.BEFORE_ATTRIBUTE_NAME;
+    }
+  }
+
+  private void parseToken() {
+    switch (state) {
+      case BEFORE_NODE_NAME:
+        int start = index;
+        popWhile(TagParser::isNodeNameChar);
+        element.setNameSymbol(names.intern(code, start, index));
+        break;
+      case BEFORE_ATTRIBUTE_NAME:
+        attributeName();
+        break;
+      default:
+        attributeValue();
+        break;
+    }
+  }
+
+  private void attributeName() {
+    int line = relativeLine;
+    int column = relativeColumn;
+    int start = index;
+    popWhile(TagParser::isAttributeNameChar);
+    int end = trimEnd(start, index);
+    Attribute attribute = new Attribute(names.intern(code, trimStart(start, end), end), "");
+    attribute.setLine(line + startLine - 1);
+    attribute.setStartColumn(line == 1 ? (startColumn + column) : column);
+    attributes.add(attribute);
+  }
+
+  private void attributeValue() {
+    if (attributes.isEmpty()) {
+      return;
+    }
+    Attribute attribute = attributes.get(attributes.size() - 1);
+    char c = code.charAt(index);
+    if (c == '\'' || c == '"') {
+      pop();
+      if (index >= codeLength || code.charAt(index) != c) {
+        int start = index;
+        popQuotedValue(c);
+        setValue(attribute, start, index, c);
+      }
+      pop();
+      attribute.setQuoteChar(c);
+    } else {
+      int start = index;
+      popWhile(TagParser::isUnquotedAttributeValueChar);
+      setValue(attribute, start, index);
+    }
+  }
+
+  /**
+   * Pops a quoted attribute value, up to its closing quote, handling nested quotes.
+   * <p>
+   * Supports two types of nested quote patterns:
+   * 1. Different quote types: {@code class="<c:if test='${x}'>..."}
+   * 2. Same quotes inside brackets (Razor): {@code id="@Html.UniqueId("field")"} or {@code value="@dict["key"]"}
+   * <p>
+   * Uses a stack to track quote nesting and bracket depth for method calls and indexers.
+   */
+  private void popQuotedValue(char outerQuote) {
+    char[] quoteStack = new char[8];
+    quoteStack[0] = outerQuote;
+    int quoteDepth = 1;
+    int bracketDepth = 0;
+    char previousChar = 0;
+    boolean first = true;
+    while (index < codeLength) {
+      char c = code.charAt(index);
+      // Track bracket depth for method calls (...) and indexers [...]
+      if (previousChar != '\\') {
+        if (c == '(' || c == '[') {
+          bracketDepth++;
+        } else if ((c == ')' || c == ']') && bracketDepth > 0) {
+          bracketDepth--;
+        }
+      }
+      if ((c == '\'' || c == '"') && previousChar != '\\') {
+        // Check for same-quote-inside-brackets FIRST (Razor pattern)
+        // e.g., id="@Html.Method("field")" or value="@dict["key"]"
+        if ((bracketDepth > 0 && c == outerQuote && quoteDepth == 1) || quoteDepth == 0 || quoteStack[quoteDepth - 1] != c) {
+          // opens a new nested level
+          if (quoteDepth == quoteStack.length) {
+            quoteStack = Arrays.copyOf(quoteStack, quoteDepth * 2);
+          }
+          quoteStack[quoteDepth++] = c;
+        } else {
+          // same quote as top of stack: this is a closing quote
+          quoteDepth--;
+        }
+        // the first character of the value never closes it, it is popped whatever it is
+        if (quoteDepth == 0 && !first) {
+          return;
+        }
+      }
+      previousChar = c;
+      first = false;
+      pop();
+    }
+  }
+
+  /**
+   * Sets the value between the indexes, trimmed, as a region of the code.
+   */
+  private void setValue(Attribute attribute, int start, int end) {
+    int trimmedEnd = trimEnd(start, end);
+    attribute.setValue(code, trimStart(start, trimmedEnd), trimmedEnd);
+  }
+
+  /**
+   * Index of the first character between the indexes which is not trimmed by {@link String#trim()}.
+   */
+  private int trimStart(int start, int end) {
+    while (start < end && code.charAt(start) <= ' ') {
+      start++;
+    }
+    return start;
+  }
+
+  /**
+   * Index following the last character between the indexes which is not trimmed by {@link String#trim()}.
+   */
+  private int trimEnd(int start, int end) {
+    while (end > start && code.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Sets the quoted value between the indexes: a region of the code, unless the escaped quotes it contains have to be
+   * replaced with the quote.
+   */
+  private void setValue(Attribute attribute, int start, int end, char quote) {
+    int escape = escapedQuote(start, end, quote);
+    if (escape < 0) {
+      attribute.setValue(code, start, end);
+      return;
+    }
+    StringBuilder value = new StringBuilder(end - start);
+    int copied = start;
+    while (escape >= 0) {
+      value.append(code, copied, escape).append(quote);
+      copied = escape + 2;
+      escape = escapedQuote(copied, end, quote);
+    }
+    attribute.setValue(value.append(code, copied, end).toString());
+  }
+
+  /**
+   * Index of the first quote escaped with a backslash between the indexes, or -1 when there is none.
+   */
+  private int escapedQuote(int start, int end, char quote) {
+    for (int i = start; i + 1 < end; i++) {
+      if (code.charAt(i) == '\\' && code.charAt(i + 1) == quote) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * A tag nested in the tag is read as a token of its own, and added as an attribute.
+   */
+  private void nestedTag() {
+    NestedToken token = nestedTokenReader.read(code, index);
+    attributes.add(new Attribute(token.code()));
+    while (index < token.end()) {
+      pop();
+    }
+  }
+
+  /**
+   * Pops the current character, then the following ones as long as they match.
+   */
+  private void popWhile(CharPredicate predicate) {
+    pop();
+    while (index < codeLength && predicate.test(code.charAt(index))) {
+      pop();
+    }
+  }
+
+  private void pop() {
+    if (index >= codeLength) {
+      return;
+    }
+    char c = code.charAt(index++);
+    if (c == '\n' || (c == '\r' && (index >= codeLength || code.charAt(index) != '\n'))) {
+      relativeLine++;
+      relativeColumn = 0;
+    } else {
+      relativeColumn++;
+    }
+  }
+
+  private static boolean isNodeNameChar(char c) {
+    return c != '>' && c != '/' && c != '{' && !Character.isWhitespace(c);
+  }
+
+  private static boolean isAttributeNameChar(char c) {
+    return c != '=' && c != '>' && !Character.isWhitespace(c);
+  }
+
+  private static boolean isUnquotedAttributeValueChar(char c) {
+    return !Character.isWhitespace(c) && c != '"' && c != '\'' && c != '=' && c != '<' && c != '>' && c != '`';
+  }
+
+  @FunctionalInterface
+  private interface CharPredicate {
+    boolean test(char c);
+  }
+
+}
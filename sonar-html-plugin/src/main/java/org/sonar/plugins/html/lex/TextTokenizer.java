@@ -17,59 +17,31 @@
 package org.sonar.plugins.html.lex;
 
 import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
 import org.sonar.sslr.channel.CodeReader;
-import org.sonar.sslr.channel.EndMatcher;
 
 /**
  * Tokenizer for content.
- *
-
- *
- *        TODO - handle CDATA
  */
 class TextTokenizer extends AbstractTokenizer<List<Node>> {
 
-  private static final class EndTokenMatcher implements EndMatcher {
-
-    @Override
-    public boolean match(int endFlag) {
-      return endFlag == '<';
-    }
-  }
-
-  private final EndMatcher endTokenMatcher = new EndTokenMatcher();
-
-  public TextTokenizer() {
-    super("", "");
-  }
-
   /**
-   * Checks for the end of a script block
+   * Start of the closing tag of the elements whose content is raw text: the text following their start tag goes up to
+   * their closing tag, without any tag inside.
+   * <p>
+   * {@code style} and the escapable raw text elements, {@code textarea} and {@code title}, are not part of them: in
+   * templates they often hold server-side code, such as {@code <%= color %>} or {@code <s:text name="page.title"/>},
+   * which the rules must see.
    */
-  private static class EndScriptMatcher implements EndMatcher {
-
-    private final CodeReader codeReader;
-    private static final String END_SCRIPT = "</script>";
-
-    public EndScriptMatcher(CodeReader codeReader) {
-      this.codeReader = codeReader;
-    }
-
-    @Override
-    public boolean match(int endFlag) {
-
-      // return true on end of file
-      if (endFlag == (char) -1) {
-        return true;
-      }
+  static final Map<String, char[]> RAW_TEXT_CLOSING_TAGS = Map.of("script", "</script".toCharArray());
 
-      // check for end script
-      return (char) endFlag == '<' && END_SCRIPT.equalsIgnoreCase(new String(codeReader.peek(END_SCRIPT.length())));
-    }
+  public TextTokenizer() {
+    super("", "");
   }
 
   @Override
@@ -78,13 +50,9 @@ class TextTokenizer extends AbstractTokenizer<List<Node>> {
 
     setStartPosition(codeReader, node);
 
-    StringBuilder stringBuilder = new StringBuilder();
-    if (inScript(nodeList)) {
-      popTo(codeReader, new EndScriptMatcher(codeReader), stringBuilder);
-    } else {
-      popTo(codeReader, endTokenMatcher, stringBuilder);
-    }
-    node.setCode(stringBuilder.toString());
+    char[] closingTag = rawTextClosingTag(nodeList);
+    int length = closingTag == null ? indexOf(codeReader, '<') : closingTagOffset(codeReader, closingTag);
+    popCode(codeReader, nodeList, node, length);
     setEndPosition(codeReader, node);
 
     nodeList.add(node);
@@ -92,15 +60,47 @@ class TextTokenizer extends AbstractTokenizer<List<Node>> {
     return true;
   }
 
-  private static boolean inScript(List<Node> nodeList) {
+  private static int indexOf(CodeReader codeReader, char c) {
+    int remaining = codeReader.length();
+    for (int offset = 1; offset < remaining; offset++) {
+      if (codeReader.charAt(offset) == c) {
+        return offset;
+      }
+    }
+    return remaining;
+  }
+
+  private static int closingTagOffset(CodeReader codeReader, char[] closingTag) {
+    int remaining = codeReader.length();
+    for (int offset = 1; offset < remaining; offset++) {
+      if (codeReader.charAt(offset) == '<'
+        && startsWith(codeReader, offset, closingTag, true)
+        && isTagNameEnd(codeReader.charAt(offset + closingTag.length))) {
+        return offset;
+      }
+    }
+    return remaining;
+  }
+
+  static boolean isTagNameEnd(char c) {
+    return c == '>' || c == '/' || Character.isWhitespace(c);
+  }
+
+  /**
+   * The start of the closing tag when the text follows the start tag of a raw text element, {@code null} otherwise.
+   */
+  @CheckForNull
+  static char[] rawTextClosingTag(List<Node> nodeList) {
     if (!nodeList.isEmpty()) {
       Node node = nodeList.get(nodeList.size() - 1);
       if (node.getNodeType() == NodeType.TAG) {
         TagNode tag = (TagNode) node;
-        return !tag.isEndElement() && "script".equalsIgnoreCase(tag.getNodeName());
+        if (!tag.isEndElement() && !tag.hasEnd()) {
+          return RAW_TEXT_CLOSING_TAGS.get(tag.getLowerCaseNodeName());
+        }
       }
     }
-    return false;
+    return null;
   }
 
   @Override
@@ -0,0 +1,81 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.sslr.channel.Channel;
+import org.sonar.sslr.channel.CodeReader;
+
+/**
+ * Channel trying, among the tokenizers, only the ones whose start token is compatible with the next two characters,
+ * instead of trying all of them in turn at each position. The candidates are tried in the order of the tokenizers.
+ * <p>
+ * The candidates are looked up in a table indexed by the two characters when they are ASCII. Any other character
+ * is treated as a wildcard, which keeps more candidates than needed but never less.
+ */
+final class TokenizerDispatcher extends Channel<List<Node>> {
+
+  private static final int WILDCARD = 128;
+
+  private final Channel<List<Node>>[][][] candidates;
+
+  @SuppressWarnings("unchecked")
+  TokenizerDispatcher(List<? extends AbstractTokenizer<List<Node>>> tokenizers) {
+    candidates = new Channel[WILDCARD + 1][WILDCARD + 1][];
+    // most cells have the same candidates, they share their array
+    Map<List<Channel<List<Node>>>, Channel<List<Node>>[]> shared = new HashMap<>();
+    for (int first = 0; first <= WILDCARD; first++) {
+      for (int second = 0; second <= WILDCARD; second++) {
+        List<Channel<List<Node>>> cell = new ArrayList<>();
+        for (AbstractTokenizer<List<Node>> tokenizer : tokenizers) {
+          if (isCandidate(tokenizer.startChars(), first, second)) {
+            cell.add(tokenizer);
+          }
+        }
+        candidates[first][second] = shared.computeIfAbsent(cell, c -> c.toArray(new Channel[0]));
+      }
+    }
+  }
+
+  private static boolean isCandidate(char[] startChars, int first, int second) {
+    return (startChars.length < 1 || sameIgnoringCase(startChars[0], first))
+      && (startChars.length < 2 || sameIgnoringCase(startChars[1], second));
+  }
+
+  private static boolean sameIgnoringCase(char expected, int actual) {
+    return actual == WILDCARD || Character.toLowerCase(expected) == Character.toLowerCase((char) actual);
+  }
+
+  @Override
+  public boolean consume(CodeReader code, List<Node> output) {
+    for (Channel<List<Node>> tokenizer : candidates[index(code.charAt(0))][index(code.charAt(1))]) {
+      if (tokenizer.consume(code, output)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int index(char c) {
+    return c < WILDCARD ? c : WILDCARD;
+  }
+
+}
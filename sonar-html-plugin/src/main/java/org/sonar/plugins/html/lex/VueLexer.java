@@ -16,14 +16,16 @@
  */
 package org.sonar.plugins.html.lex;
 
-import java.io.Reader;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 
+import javax.annotation.Nullable;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.AnalysisProfiler;
+import org.sonar.plugins.html.visitor.FileTimeBudget;
 
 /**
  * Lexical analysis of Vue.js Single File Components.
@@ -33,9 +35,17 @@ public class VueLexer extends PageLexer {
   private static final Object TEMPLATE_LEVEL = new Object();
   private static final String TEMPLATE = "template";
 
+  public VueLexer() {
+    super();
+  }
+
+  public VueLexer(boolean stateMachine) {
+    super(stateMachine);
+  }
+
   @Override
-  public List<Node> parse(Reader reader) {
-    List<Node> nodes = super.parse(reader);
+  public List<Node> parse(CharSequence source, @Nullable String path, AnalysisProfiler profiler, FileTimeBudget budget) {
+    List<Node> nodes = super.parse(source, path, profiler, budget);
     boolean firstTemplateTag = true;
     List<Node> templateNodes = new LinkedList<>();
     Deque<Object> templateLevels = new LinkedList<>();
@@ -21,9 +21,10 @@ package org.sonar.plugins.html.node;
  */
 public class Attribute {
 
-  private String name;
+  private NameSymbol name;
   private char quoteChar;
-  private String value;
+  // a string, or a region of the source the attribute is read from until the string is asked for
+  private CharSequence value;
   private int line;
   private int startColumn = -1;
 
@@ -32,16 +33,34 @@ public class Attribute {
   }
 
   public Attribute(String name, String value) {
+    this(new NameSymbol(name), value);
+  }
+
+  public Attribute(NameSymbol name, String value) {
     this.name = name;
     this.value = value;
   }
 
   public String getName() {
+    return name.getName();
+  }
+
+  /**
+   * The name in lowercase, in the root locale, computed once for all the attributes sharing the name in a file.
+   */
+  public String getLowerCaseName() {
+    return name.getLowerCaseName();
+  }
+
+  public NameSymbol getNameSymbol() {
     return name;
   }
 
   public String getValue() {
-    return value;
+    if (value != null && !(value instanceof String)) {
+      value = value.toString();
+    }
+    return (String) value;
   }
 
   public boolean isDoubleQuoted() {
@@ -53,7 +72,7 @@ public class Attribute {
   }
 
   public void setName(String name) {
-    this.name = name;
+    this.name = new NameSymbol(name);
   }
 
   public void setQuoteChar(char quoteChar) {
@@ -64,6 +83,13 @@ public class Attribute {
     this.value = value;
   }
 
+  /**
+   * Sets the value as the region of the source between the indexes, which is only copied when the value is asked for.
+   */
+  public void setValue(CharSequence source, int start, int end) {
+    this.value = SourceRegion.of(source, start, end);
+  }
+
   public int getLine() {
     return line;
   }
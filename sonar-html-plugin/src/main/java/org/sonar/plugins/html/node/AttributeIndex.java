@@ -0,0 +1,173 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.List;
+import javax.annotation.CheckForNull;
+
+/**
+ * Finds the attributes of a tag by their name, and by the name of the property they bind, ignoring case as
+ * {@link String#equalsIgnoreCase(String)} does: built by the tag on its first lookup, it serves all the following ones
+ * without allocating, until attributes are added. The name looked up is hashed ignoring case rather than lowercased,
+ * so a lookup allocates nothing whatever the case of the name.
+ * <p>
+ * Both are open addressing tables, sized for the few attributes of a tag. When several attributes share a name, or
+ * bind the same property, the first one is found, as with a scan of the attributes.
+ */
+final class AttributeIndex {
+
+  private final int attributeCount;
+  private final List<Attribute> attributes;
+  private final Attribute[] byName;
+  // property names and attributes, alternately, built on the first property lookup
+  private Object[] byProperty;
+
+  AttributeIndex(List<Attribute> attributes) {
+    this.attributes = attributes;
+    this.attributeCount = attributes.size();
+    this.byName = new Attribute[capacity(attributeCount)];
+    for (Attribute attribute : attributes) {
+      if (attribute.getName() != null) {
+        putName(attribute);
+      }
+    }
+  }
+
+  /**
+   * Whether attributes have been added to the tag since the index was built.
+   */
+  boolean isStale() {
+    return attributes.size() != attributeCount;
+  }
+
+  @CheckForNull
+  Attribute attribute(String name) {
+    int mask = byName.length - 1;
+    for (int i = index(name, mask); byName[i] != null; i = (i + 1) & mask) {
+      if (byName[i].getName().equalsIgnoreCase(name)) {
+        return byName[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The first attribute binding the property, as found by {@link TagNode#getProperty(String)}.
+   */
+  @CheckForNull
+  Attribute property(String propertyName) {
+    if (byProperty == null) {
+      indexProperties();
+    }
+    int mask = byProperty.length / 2 - 1;
+    for (int i = index(propertyName, mask); byProperty[2 * i] != null; i = (i + 1) & mask) {
+      if (((String) byProperty[2 * i]).equalsIgnoreCase(propertyName)) {
+        return (Attribute) byProperty[2 * i + 1];
+      }
+    }
+    return null;
+  }
+
+  private void putName(Attribute attribute) {
+    String name = attribute.getName();
+    int mask = byName.length - 1;
+    int i = index(name, mask);
+    while (byName[i] != null) {
+      if (byName[i].getName().equalsIgnoreCase(name)) {
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    byName[i] = attribute;
+  }
+
+  /**
+   * Indexes each attribute under every property it binds, for any of the spellings accepted by
+   * {@link TagNode#getProperty(String)}: {@code x}, {@code [x]}, {@code v-bind:x}, {@code :x}, {@code [attr.x]},
+   * {@code attr.x} and {@code :[x]}.
+   */
+  private void indexProperties() {
+    // each attribute binds at most 3 properties, as a name starts with at most one of "[", ":", "v-bind:" and "attr."
+    byProperty = new Object[2 * capacity(3 * attributeCount)];
+    for (Attribute attribute : attributes) {
+      if (attribute.getName() == null) {
+        continue;
+      }
+      String name = attribute.getLowerCaseName();
+      int length = name.length();
+      putProperty(name, attribute);
+      if (name.startsWith("[") && name.endsWith("]")) {
+        putProperty(name.substring(1, length - 1), attribute);
+        if (name.startsWith("[attr.")) {
+          putProperty(name.substring(6, length - 1), attribute);
+        }
+      }
+      if (name.startsWith(":")) {
+        putProperty(name.substring(1), attribute);
+        if (name.startsWith(":[") && name.endsWith("]")) {
+          putProperty(name.substring(2, length - 1), attribute);
+        }
+      }
+      if (name.startsWith("v-bind:")) {
+        putProperty(name.substring(7), attribute);
+      }
+      if (name.startsWith("attr.")) {
+        putProperty(name.substring(5), attribute);
+      }
+    }
+  }
+
+  private void putProperty(String propertyName, Attribute attribute) {
+    int mask = byProperty.length / 2 - 1;
+    int i = index(propertyName, mask);
+    while (byProperty[2 * i] != null) {
+      if (((String) byProperty[2 * i]).equalsIgnoreCase(propertyName)) {
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    byProperty[2 * i] = propertyName;
+    byProperty[2 * i + 1] = attribute;
+  }
+
+  /**
+   * A power of two with room for twice the entries, so that the probes stay short and always end on an empty slot.
+   */
+  private static int capacity(int entries) {
+    return Integer.highestOneBit(Math.max(2 * entries, 1)) << 1;
+  }
+
+  private static int index(String key, int mask) {
+    int hash = caseInsensitiveHash(key);
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  /**
+   * A hash equal for all the strings equal ignoring case: each code point is folded the way
+   * {@link String#equalsIgnoreCase(String)} compares them, to lowercase after uppercase.
+   */
+  private static int caseInsensitiveHash(String key) {
+    int hash = 0;
+    for (int i = 0; i < key.length(); ) {
+      int codePoint = key.codePointAt(i);
+      hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(codePoint));
+      i += Character.charCount(codePoint);
+    }
+    return hash;
+  }
+
+}
@@ -56,7 +56,7 @@ public class CommentNode extends Node {
   }
 
   public boolean isServerSideInclude() {
-    return html && getCode().startsWith("<!--#");
+    return html && codeStartsWith("<!--#");
   }
 
 }
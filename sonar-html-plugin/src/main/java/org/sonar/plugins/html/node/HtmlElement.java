@@ -0,0 +1,70 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The HTML elements known to the plugin, current and deprecated ones. The name of a tag is resolved once against them,
+ * so that the element of a tag is tested with a switch or an {@link java.util.EnumSet} rather than with string
+ * comparisons.
+ */
+public enum HtmlElement {
+  A, ABBR, ACRONYM, ADDRESS, APPLET, AREA, ARTICLE, ASIDE, AUDIO, B, BASE, BASEFONT, BDI, BDO, BGSOUND, BIG, BLINK,
+  BLOCKQUOTE, BODY, BR, BUTTON, CANVAS, CAPTION, CENTER, CITE, CODE, COL, COLGROUP, CONTENT, DATA, DATALIST, DD, DEL,
+  DETAILS, DFN, DIALOG, DIR, DIV, DL, DT, EM, EMBED, FIELDSET, FIGCAPTION, FIGURE, FONT, FOOTER, FORM, FRAME,
+  FRAMESET, H1, H2, H3, H4, H5, H6, HEAD, HEADER, HGROUP, HR, HTML, I, IFRAME, IMAGE, IMG, INPUT, INS, ISINDEX, KBD,
+  KEYGEN, LABEL, LEGEND, LI, LINK, LISTING, MAIN, MAP, MARK, MARQUEE, MATH, MENU, MENUITEM, META, METER, NAV, NOBR,
+  NOEMBED, NOFRAMES, NOSCRIPT, OBJECT, OL, OPTGROUP, OPTION, OUTPUT, P, PARAM, PICTURE, PLAINTEXT, PRE, PROGRESS, Q,
+  RB, RP, RT, RTC, RUBY, S, SAMP, SCRIPT, SEARCH, SECTION, SELECT, SHADOW, SLOT, SMALL, SOURCE, SPACER, SPAN, STRIKE,
+  STRONG, STYLE, SUB, SUMMARY, SUP, SVG, TABLE, TBODY, TD, TEMPLATE, TEXTAREA, TFOOT, TH, THEAD, TIME, TITLE, TR,
+  TRACK, TT, U, UL, VAR, VIDEO, WBR, XMP,
+
+  /**
+   * Any other tag: a custom element, a server-side tag, a typo.
+   */
+  UNKNOWN;
+
+  private static final Map<String, HtmlElement> BY_NAME = Arrays.stream(values())
+    .filter(element -> element != UNKNOWN)
+    .collect(Collectors.toMap(HtmlElement::getName, Function.identity()));
+
+  private final String lowerCaseName;
+
+  HtmlElement() {
+    this.lowerCaseName = name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * The name of the element, in lowercase.
+   */
+  public String getName() {
+    return lowerCaseName;
+  }
+
+  /**
+   * The element with the given lowercase name, or {@link #UNKNOWN}.
+   */
+  public static HtmlElement of(String lowerCaseName) {
+    return BY_NAME.getOrDefault(lowerCaseName, UNKNOWN);
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.Locale;
+
+/**
+ * The name of a tag or of an attribute, along with its lowercase and local forms, computed on first use. The lexer interns the names, so
+ * that a name found several times in a file is one symbol, whose forms are computed once.
+ */
+public final class NameSymbol {
+
+  private final String name;
+  private String lowerCaseName;
+  private String localName;
+  private String lowerCaseLocalName;
+  private HtmlElement element;
+
+  public NameSymbol(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * The name in lowercase, in the root locale.
+   */
+  public String getLowerCaseName() {
+    if (lowerCaseName == null) {
+      lowerCaseName = name.toLowerCase(Locale.ROOT);
+    }
+    return lowerCaseName;
+  }
+
+  /**
+   * The part of the name following its last colon, such as {@code out} for {@code c:out}, or the whole name when
+   * there is no such part.
+   */
+  public String getLocalName() {
+    if (localName == null) {
+      localName = localName(name);
+    }
+    return localName;
+  }
+
+  /**
+   * The local name in lowercase, in the root locale.
+   */
+  public String getLowerCaseLocalName() {
+    if (lowerCaseLocalName == null) {
+      lowerCaseLocalName = getLocalName().toLowerCase(Locale.ROOT);
+    }
+    return lowerCaseLocalName;
+  }
+
+  /**
+   * The known HTML element of the name, looked up once, case-insensitively.
+   */
+  public HtmlElement getElement() {
+    if (element == null) {
+      element = HtmlElement.of(getLowerCaseName());
+    }
+    return element;
+  }
+
+  private static String localName(String name) {
+    int end = name.length();
+    while (end > 0 && name.charAt(end - 1) == ':') {
+      end--;
+    }
+    if (end == 0) {
+      return name;
+    }
+    return name.substring(name.lastIndexOf(':', end - 1) + 1, end);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
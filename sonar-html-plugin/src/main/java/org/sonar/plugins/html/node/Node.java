@@ -16,6 +16,8 @@
  */
 package org.sonar.plugins.html.node;
 
+import java.util.Objects;
+
 /**
  * Defines a node.
  *
@@ -23,7 +25,13 @@ package org.sonar.plugins.html.node;
  */
 public abstract class Node {
 
-  private String code;
+  private static final int NO_REGION = -1;
+
+  // the code, or, until the code is asked for as a string, the source the node is read from along with the region of
+  // the code in it: the region is kept in the node rather than in a view of the source, for one object less per node
+  private CharSequence code;
+  private int codeStart;
+  private int codeEnd = NO_REGION;
   private int endColumnPosition;
   private int endLinePosition;
   private final NodeType nodeType;
@@ -38,6 +46,20 @@ public abstract class Node {
   }
 
   public String getCode() {
+    if (codeEnd != NO_REGION) {
+      code = code.subSequence(codeStart, codeEnd).toString();
+      codeEnd = NO_REGION;
+    }
+    return code == null ? "" : (String) code;
+  }
+
+  /**
+   * The code, without copying it out of the source the node is read from.
+   */
+  public CharSequence getCodeSequence() {
+    if (codeEnd != NO_REGION) {
+      return SourceRegion.of(code, codeStart, codeEnd);
+    }
     return code == null ? "" : code;
   }
 
@@ -63,6 +85,60 @@ public abstract class Node {
 
   public void setCode(String code) {
     this.code = code;
+    this.codeEnd = NO_REGION;
+  }
+
+  /**
+   * Sets the code as the region of the source between the indexes, which is only copied when the code is asked for as
+   * a string.
+   */
+  public void setCode(CharSequence source, int start, int end) {
+    Objects.checkFromToIndex(start, end, source.length());
+    this.code = source;
+    this.codeStart = start;
+    this.codeEnd = end;
+  }
+
+  private int codeLength() {
+    if (codeEnd != NO_REGION) {
+      return codeEnd - codeStart;
+    }
+    return code == null ? 0 : code.length();
+  }
+
+  /**
+   * Character of the code at the index, without copying the code out of the source.
+   */
+  private char codeCharAt(int index) {
+    return codeEnd != NO_REGION ? code.charAt(codeStart + index) : code.charAt(index);
+  }
+
+  protected boolean codeStartsWith(String prefix) {
+    return codeLength() >= prefix.length() && codeMatches(0, prefix);
+  }
+
+  protected boolean codeEndsWith(String suffix) {
+    int length = codeLength();
+    return length >= suffix.length() && codeMatches(length - suffix.length(), suffix);
+  }
+
+  protected boolean isCodeBlank() {
+    int length = codeLength();
+    for (int i = 0; i < length; i++) {
+      if (!Character.isWhitespace(codeCharAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean codeMatches(int offset, String token) {
+    for (int i = 0; i < token.length(); i++) {
+      if (codeCharAt(offset + i) != token.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public void setEndColumnPosition(int endColumnPosition) {
@@ -0,0 +1,72 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.Objects;
+
+/**
+ * A region of the source a node is read from. It stands for the code of the node or the value of an attribute without
+ * copying them out of the source, and is copied to a string only when the string is asked for.
+ */
+final class SourceRegion implements CharSequence {
+
+  private final CharSequence source;
+  private final int start;
+  private final int end;
+
+  private SourceRegion(CharSequence source, int start, int end) {
+    this.source = source;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * The region of the source between the indexes. The region of a region is a region of the same source.
+   */
+  static CharSequence of(CharSequence source, int start, int end) {
+    Objects.checkFromToIndex(start, end, source.length());
+    if (start == end) {
+      return "";
+    }
+    if (source instanceof SourceRegion region) {
+      return new SourceRegion(region.source, region.start + start, region.start + end);
+    }
+    return new SourceRegion(source, start, end);
+  }
+
+  @Override
+  public int length() {
+    return end - start;
+  }
+
+  @Override
+  public char charAt(int index) {
+    Objects.checkIndex(index, length());
+    return source.charAt(start + index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return of(this, start, end);
+  }
+
+  @Override
+  public String toString() {
+    return source.subSequence(start, end).toString();
+  }
+
+}
@@ -17,7 +17,9 @@
 package org.sonar.plugins.html.node;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
@@ -28,9 +30,14 @@ import javax.annotation.Nullable;
  */
 public class TagNode extends Node {
 
-  private final List<Attribute> attributes = new ArrayList<>();
-  private final List<TagNode> children = new ArrayList<>();
-  private String nodeName;
+  private List<Attribute> attributes;
+  private Consumer<List<Attribute>> attributeReader;
+  private AttributeIndex attributeIndex;
+  // created with the first child or the first access, as most tags have none: end tags, void elements
+  private List<TagNode> children;
+  private static final NameSymbol NO_NAME = new NameSymbol("");
+
+  private NameSymbol nodeName = NO_NAME;
   private TagNode parent;
 
   public TagNode() {
@@ -61,29 +68,8 @@ public class TagNode extends Node {
    */
   @Nullable
   public Attribute getProperty(String propertyName) {
-    List<String> domPropertyBindings = domPropertyBindingNames(propertyName);
-    String angularAttrProperty = "[attr." + propertyName + "]";
-    String shortAngularAttrProperty = "attr." + propertyName;
-    String vueSquaredShorthandProperty = ":[" + propertyName + "]";
-    for (Attribute a : attributes) {
-      String attributeName = a.getName();
-      if (propertyName.equalsIgnoreCase(attributeName)
-          || containsIgnoreCase(domPropertyBindings, attributeName)
-          || angularAttrProperty.equalsIgnoreCase(attributeName) || shortAngularAttrProperty.equalsIgnoreCase(attributeName)
-          || vueSquaredShorthandProperty.equalsIgnoreCase(attributeName)) {
-        return a;
-      }
-    }
-    return null;
-  }
-
-  private static boolean containsIgnoreCase(List<String> names, String name) {
-    for (String candidate : names) {
-      if (candidate.equalsIgnoreCase(name)) {
-        return true;
-      }
-    }
-    return false;
+    AttributeIndex index = attributeIndex();
+    return index == null ? null : index.property(propertyName);
   }
 
   @Nullable
@@ -101,38 +87,104 @@ public class TagNode extends Node {
 
   @CheckForNull
   public String getAttribute(String attributeName) {
-    for (Attribute a : attributes) {
-      if (attributeName.equalsIgnoreCase(a.getName())) {
-        return a.getValue();
+    AttributeIndex index = attributeIndex();
+    if (index != null) {
+      Attribute attribute = index.attribute(attributeName);
+      if (attribute != null) {
+        return attribute.getValue();
       }
     }
     return null;
   }
 
   public List<Attribute> getAttributes() {
+    if (attributes == null) {
+      attributes = new ArrayList<>();
+    }
+    readAttributes();
     return attributes;
   }
 
+  /**
+   * The attributes, read by the attribute reader if they have not been yet. Unlike {@link #getAttributes()}, no list
+   * is created for a tag without attributes.
+   */
+  private List<Attribute> readAttributes() {
+    if (attributeReader != null) {
+      Consumer<List<Attribute>> reader = attributeReader;
+      attributeReader = null;
+      if (attributes == null) {
+        attributes = new ArrayList<>();
+      }
+      reader.accept(attributes);
+    }
+    return attributes == null ? Collections.emptyList() : attributes;
+  }
+
+  /**
+   * The index of the attributes, {@code null} for a tag without attributes. It is built again when attributes have
+   * been added since the last lookup, but not when one is renamed with {@link Attribute#setName(String)}.
+   */
+  @CheckForNull
+  private AttributeIndex attributeIndex() {
+    List<Attribute> list = readAttributes();
+    if (list.isEmpty()) {
+      return null;
+    }
+    if (attributeIndex == null || attributeIndex.isStale()) {
+      attributeIndex = new AttributeIndex(list);
+    }
+    return attributeIndex;
+  }
+
+  /**
+   * Defers the reading of the attributes to their first access, so that the tags whose attributes are never inspected
+   * do not pay for them: the reader is then given the list of attributes to fill.
+   */
+  public void setAttributeReader(@Nullable Consumer<List<Attribute>> attributeReader) {
+    this.attributeReader = attributeReader;
+  }
+
   public boolean hasAttribute(String attributeName) {
     return getAttribute(attributeName) != null;
   }
 
+  /**
+   * The children of the tag, as a modifiable list. It is created on first access for a tag without children, just
+   * like the list of attributes.
+   */
   public List<TagNode> getChildren() {
+    if (children == null) {
+      children = new ArrayList<>(2);
+    }
     return children;
   }
 
   public String getLocalName() {
-    String[] parts = getNodeName().split(":");
-    String localPart = parts[parts.length - 1];
-    if (localPart.isEmpty()) {
-      return getNodeName();
-    } else {
-      return localPart;
-    }
+    return nodeName.getLocalName();
   }
 
   public String getNodeName() {
-    return nodeName == null ? "" : nodeName;
+    return nodeName.getName();
+  }
+
+  /**
+   * The name in lowercase, in the root locale, computed once for all the tags sharing the name in a file.
+   */
+  public String getLowerCaseNodeName() {
+    return nodeName.getLowerCaseName();
+  }
+
+  /**
+   * The known HTML element of the tag, {@link HtmlElement#UNKNOWN} for any other tag, resolved once for all the tags
+   * sharing the name in a file.
+   */
+  public HtmlElement getElement() {
+    return nodeName.getElement();
+  }
+
+  public NameSymbol getNameSymbol() {
+    return nodeName;
   }
 
   @Nullable
@@ -141,21 +193,29 @@ public class TagNode extends Node {
   }
 
   public boolean hasEnd() {
-    return getCode().endsWith("/>");
+    return codeEndsWith("/>");
   }
 
   public boolean isEndElement() {
-    return getCode().startsWith("</");
+    return codeStartsWith("</");
+  }
+
+  public void setNodeName(@Nullable String nodeName) {
+    this.nodeName = nodeName == null ? NO_NAME : new NameSymbol(nodeName);
   }
 
-  public void setNodeName(String nodeName) {
+  public void setNameSymbol(NameSymbol nodeName) {
     this.nodeName = nodeName;
   }
 
   public void setParent(@Nullable TagNode parent) {
     this.parent = parent;
     if (parent != null) {
-      parent.getChildren().add(this);
+      parent.addChild(this);
     }
   }
+
+  private void addChild(TagNode child) {
+    getChildren().add(child);
+  }
 }
@@ -30,7 +30,7 @@ public class TextNode extends Node {
   }
 
   public boolean isBlank() {
-    return getCode().isBlank();
+    return isCodeBlank();
   }
   public TagNode getParent() {
     return parent;
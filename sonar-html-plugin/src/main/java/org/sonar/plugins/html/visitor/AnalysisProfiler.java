@@ -0,0 +1,160 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the time spent in each phase of the analysis and in each callback of each visitor, when enabled with
+ * {@link org.sonar.plugins.html.api.HtmlConstants#ANALYSIS_PROFILING_PROP_KEY}. It can be shared by the threads
+ * analyzing files.
+ * <p>
+ * The time of a phase is measured with {@link #start()} followed by {@link #stopPhase}. When the profiler is
+ * {@link #DISABLED}, these calls do nothing, so that they can stay in the analysis code. The callbacks of the visitors
+ * are far more frequent: their measures are resolved once with {@link #visitorMeasure}, and only when the profiler is
+ * enabled.
+ */
+public final class AnalysisProfiler {
+
+  public static final AnalysisProfiler DISABLED = new AnalysisProfiler(false);
+
+  private static final Comparator<Map.Entry<Key, Measure>> SLOWEST_FIRST =
+    Comparator.comparingLong((Map.Entry<Key, Measure> entry) -> entry.getValue().nanos.sum()).reversed();
+
+  private final boolean enabled;
+  private final Map<Key, Measure> phases = new ConcurrentHashMap<>();
+  private final Map<Key, Measure> visitors = new ConcurrentHashMap<>();
+
+  private AnalysisProfiler(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public static AnalysisProfiler create() {
+    return new AnalysisProfiler(true);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start time of a measure, to be passed to one of the {@code stop} methods.
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  public void stopPhase(String phase, long start) {
+    if (enabled) {
+      addPhase(phase, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records a measure taken elsewhere, such as the time a file took to be read, on whichever thread read it.
+   */
+  public void addPhase(String phase, long nanos) {
+    if (enabled) {
+      phases.computeIfAbsent(new Key(phase, ""), k -> new Measure()).add(nanos);
+    }
+  }
+
+  /**
+   * The measure of a callback of a visitor, to be resolved once and then fed with {@link Measure#add(long)} for each call,
+   * so that no lookup is made for each call. Visitors sharing a name share their measures. The measures of a disabled
+   * profiler are not part of its summary.
+   */
+  Measure visitorMeasure(String visitor, String callback) {
+    if (!enabled) {
+      return new Measure();
+    }
+    return visitors.computeIfAbsent(new Key(visitor, callback), k -> new Measure());
+  }
+
+  /**
+   * Human readable summary: the phases, then the {@code maxVisitors} visitors which took the most time, each one with
+   * the detail of its callbacks.
+   */
+  public String summary(int maxVisitors) {
+    StringBuilder summary = new StringBuilder("HTML analysis profile");
+    summary.append(System.lineSeparator()).append("  Phases:");
+    phases.entrySet().stream()
+      .sorted(SLOWEST_FIRST)
+      .forEach(phase -> summary.append(System.lineSeparator()).append("    ").append(phase.getKey().name()).append(": ").append(phase.getValue()));
+
+    Map<String, List<Map.Entry<Key, Measure>>> callbacksByVisitor = new LinkedHashMap<>();
+    visitors.entrySet().stream()
+      .filter(callback -> callback.getValue().count.sum() > 0)
+      .sorted(SLOWEST_FIRST)
+      .forEach(callback -> callbacksByVisitor.computeIfAbsent(callback.getKey().name(), k -> new ArrayList<>()).add(callback));
+    List<Map.Entry<String, List<Map.Entry<Key, Measure>>>> rankedVisitors = new ArrayList<>(callbacksByVisitor.entrySet());
+    rankedVisitors.sort(Comparator.comparingLong((Map.Entry<String, List<Map.Entry<Key, Measure>>> visitor) -> totalNanos(visitor.getValue())).reversed());
+
+    summary.append(System.lineSeparator())
+      .append(String.format(Locale.ROOT, "  Visitors (%d of %d):", Math.min(maxVisitors, rankedVisitors.size()), rankedVisitors.size()));
+    for (Map.Entry<String, List<Map.Entry<Key, Measure>>> visitor : rankedVisitors.subList(0, Math.min(maxVisitors, rankedVisitors.size()))) {
+      summary.append(System.lineSeparator()).append("    ").append(visitor.getKey()).append(": ").append(millis(totalNanos(visitor.getValue()))).append(" ms");
+      for (Map.Entry<Key, Measure> callback : visitor.getValue()) {
+        summary.append(System.lineSeparator()).append("      ").append(callback.getKey().callback()).append(": ").append(callback.getValue());
+      }
+    }
+    return summary.toString();
+  }
+
+  private static long totalNanos(List<Map.Entry<Key, Measure>> callbacks) {
+    return callbacks.stream().mapToLong(callback -> callback.getValue().nanos.sum()).sum();
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  private record Key(String name, String callback) {
+  }
+
+  /**
+   * Time spent in a phase or in a callback, and the number of measures it is made of.
+   */
+  static final class Measure {
+
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    private Measure() {
+    }
+
+    void add(long elapsedNanos) {
+      nanos.add(elapsedNanos);
+      count.increment();
+    }
+
+    @Override
+    public String toString() {
+      return millis(nanos.sum()) + " ms (" + count.sum() + " calls)";
+    }
+
+  }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+/**
+ * Depth of the analysis applied to a file.
+ */
+public enum AnalysisTier {
+
+  /**
+   * All the visitors run.
+   */
+  FULL,
+
+  /**
+   * Applied to files too large for the full analysis, typically generated or minified markup: highlighting, duplication
+   * tokens and the rules walking across nodes are skipped, while the metrics and the rules looking at one node at a time
+   * still run.
+   */
+  DEGRADED
+
+}
@@ -0,0 +1,93 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time the analysis of a single file may spend lexing and scanning, set with
+ * {@link org.sonar.plugins.html.api.HtmlConstants#FILE_TIME_BUDGET_PROP_KEY}.
+ * <p>
+ * The lexer checks it between two tokens and the scanner between two nodes, so the analysis is aborted at the next
+ * of these points once the budget is exceeded. A visitor callback which runs for long is not interrupted before it returns.
+ * <p>
+ * The clock can be paused while the file waits between lexing and scanning, which happens in the pipelined analysis. A
+ * budget is only used by one thread at a time.
+ */
+public final class FileTimeBudget {
+
+  public static final FileTimeBudget UNLIMITED = new FileTimeBudget(0L, 0L);
+
+  private final long budgetNanos;
+  // moved forward by the time spent paused
+  private long startNanos;
+  // time spent when the clock was paused, -1 while it runs
+  private long pausedElapsedNanos = -1L;
+
+  private FileTimeBudget(long budgetNanos, long startNanos) {
+    this.budgetNanos = budgetNanos;
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * Starts counting the time spent on a file, {@link #UNLIMITED} when {@code budgetMillis} is not positive.
+   */
+  public static FileTimeBudget start(long budgetMillis) {
+    if (budgetMillis <= 0) {
+      return UNLIMITED;
+    }
+    return new FileTimeBudget(TimeUnit.MILLISECONDS.toNanos(budgetMillis), System.nanoTime());
+  }
+
+  public boolean isUnlimited() {
+    return budgetNanos == 0L;
+  }
+
+  /**
+   * Stops the clock until {@link #resume()}, so that the time a file waits between two stages of its analysis is not counted.
+   */
+  public void pause() {
+    if (budgetNanos != 0L && pausedElapsedNanos < 0L) {
+      pausedElapsedNanos = System.nanoTime() - startNanos;
+    }
+  }
+
+  /**
+   * Starts the clock again from the time spent before {@link #pause()}.
+   */
+  public void resume() {
+    if (pausedElapsedNanos >= 0L) {
+      startNanos = System.nanoTime() - pausedElapsedNanos;
+      pausedElapsedNanos = -1L;
+    }
+  }
+
+  /**
+   * @param phase what the analysis is doing, reported when the budget is exceeded
+   * @throws FileTimeBudgetExceededException when the budget is exceeded
+   */
+  public void check(String phase) {
+    if (budgetNanos == 0L) {
+      return;
+    }
+    long elapsedNanos = pausedElapsedNanos >= 0L ? pausedElapsedNanos : (System.nanoTime() - startNanos);
+    if (elapsedNanos > budgetNanos) {
+      throw new FileTimeBudgetExceededException(phase, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), TimeUnit.NANOSECONDS.toMillis(budgetNanos));
+    }
+  }
+
+}
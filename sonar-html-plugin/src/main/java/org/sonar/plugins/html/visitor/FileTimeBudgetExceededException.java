@@ -0,0 +1,41 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+/**
+ * Thrown when the analysis of a file exceeds its {@link FileTimeBudget}.
+ */
+public class FileTimeBudgetExceededException extends RuntimeException {
+
+  private final String phase;
+  private final long elapsedMillis;
+
+  FileTimeBudgetExceededException(String phase, long elapsedMillis, long budgetMillis) {
+    super("Analysis aborted after " + elapsedMillis + " ms while " + phase + ", the time budget per file is " + budgetMillis + " ms");
+    this.phase = phase;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public String phase() {
+    return phase;
+  }
+
+  long elapsedMillis() {
+    return elapsedMillis;
+  }
+
+}
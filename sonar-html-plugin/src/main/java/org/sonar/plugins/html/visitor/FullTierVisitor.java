@@ -0,0 +1,26 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+/**
+ * Marker for the visitors whose cost is not proportional to the number of nodes, like the ones walking the children
+ * or the ancestors of each element, or the ones computing the tokens of the file. They only run in the
+ * {@link AnalysisTier#FULL full} analysis tier and are skipped for the files analyzed in the
+ * {@link AnalysisTier#DEGRADED degraded} tier.
+ */
+public interface FullTierVisitor {
+}
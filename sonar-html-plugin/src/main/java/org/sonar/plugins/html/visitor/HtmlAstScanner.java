@@ -17,8 +17,15 @@
 package org.sonar.plugins.html.visitor;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.checks.EmbeddedHtmlCheck;
+import org.sonar.plugins.html.jfr.ScanEvent;
+import org.sonar.plugins.html.jfr.SlowVisitorCallbackEvent;
 import org.sonar.plugins.html.node.CommentNode;
 import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.ExpressionNode;
@@ -33,11 +40,24 @@ import org.sonar.plugins.html.node.TextNode;
  */
 public class HtmlAstScanner {
 
+  private static final String SCANNING = "scanning";
+
   private final List<DefaultNodeVisitor> metricVisitors;
   private final List<DefaultNodeVisitor> checkVisitors = new ArrayList<>();
+  private final AnalysisProfiler profiler;
+  // the measures of the callbacks of each visitor, resolved with the first file scanned while the profiler is enabled
+  private final Map<DefaultNodeVisitor, AnalysisProfiler.Measure[]> measures = new IdentityHashMap<>();
 
   public HtmlAstScanner(List<DefaultNodeVisitor> metricVisitors) {
+    this(metricVisitors, AnalysisProfiler.DISABLED);
+  }
+
+  /**
+   * @param profiler receives the time spent in each callback of each visitor
+   */
+  public HtmlAstScanner(List<DefaultNodeVisitor> metricVisitors, AnalysisProfiler profiler) {
     this.metricVisitors = metricVisitors;
+    this.profiler = profiler;
   }
 
   /**
@@ -52,37 +72,127 @@ public class HtmlAstScanner {
    * Scan a list of Nodes and send events to the visitors.
    */
   public void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode) {
-    scan(nodeList, htmlSourceCode, metricVisitors);
-    scan(nodeList, htmlSourceCode, checkVisitors);
+    scan(nodeList, htmlSourceCode, FileTimeBudget.UNLIMITED);
+  }
+
+  /**
+   * Same as {@link #scan(List, HtmlSourceCode)}, giving up with a {@link FileTimeBudgetExceededException}
+   * once the time budget of the file is exceeded. The budget is checked before each node and each document event.
+   */
+  public void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, FileTimeBudget budget) {
+    scan(nodeList, htmlSourceCode, budget, AnalysisTier.FULL);
+  }
+
+  /**
+   * Same as {@link #scan(List, HtmlSourceCode, FileTimeBudget)}, leaving out the {@link FullTierVisitor} visitors
+   * unless the tier is {@link AnalysisTier#FULL}, and the {@link HandWrittenSourceVisitor} visitors when the file
+   * is {@link HtmlSourceCode#isGenerated() generated}.
+   */
+  public void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, FileTimeBudget budget, AnalysisTier tier) {
+    scan(nodeList, htmlSourceCode, applicableVisitors(metricVisitors, htmlSourceCode, tier), budget);
+    scan(nodeList, htmlSourceCode, applicableVisitors(checkVisitors, htmlSourceCode, tier), budget);
+  }
+
+  private static List<DefaultNodeVisitor> applicableVisitors(List<DefaultNodeVisitor> visitors, HtmlSourceCode htmlSourceCode,
+    AnalysisTier tier) {
+    boolean fullTier = tier == AnalysisTier.FULL;
+    boolean handWritten = !htmlSourceCode.isGenerated();
+    if (fullTier && handWritten) {
+      return visitors;
+    }
+    return visitors.stream()
+      .filter(visitor -> fullTier || !(visitor instanceof FullTierVisitor))
+      .filter(visitor -> handWritten || !(visitor instanceof HandWrittenSourceVisitor))
+      .toList();
   }
 
-  private static void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, List<DefaultNodeVisitor> visitors) {
+  private void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, List<DefaultNodeVisitor> visitors, FileTimeBudget budget) {
+    ScanEvent scanEvent = new ScanEvent();
+    scanEvent.begin();
+    String path = htmlSourceCode.toString();
+    // null when neither the profiler nor JFR measure the callbacks, which is checked once per file
+    Instrumentation instrumentation = instrumentation(path, nodeList, visitors);
+
     // prepare the visitors
     for (DefaultNodeVisitor visitor : visitors) {
       visitor.setSourceCode(htmlSourceCode);
     }
 
     // notify visitors for a new document
-    for (DefaultNodeVisitor visitor : visitors) {
-      visitor.startDocument(nodeList);
+    for (int i = 0; i < visitors.size(); i++) {
+      budget.check(SCANNING);
+      if (instrumentation == null) {
+        visitors.get(i).startDocument(nodeList);
+      } else {
+        instrumentation.call(i, visitors.get(i), null, Callback.START_DOCUMENT);
+      }
     }
 
     // notify the visitors for start and end of element
     for (Node node : nodeList) {
-      for (DefaultNodeVisitor visitor : visitors) {
+      budget.check(SCANNING);
+      for (int i = 0; i < visitors.size(); i++) {
+        DefaultNodeVisitor visitor = visitors.get(i);
         if (node.isEmbedded() && !(visitor instanceof EmbeddedHtmlCheck)) {
           // Skip visitor callbacks for embedded nodes on non-opted-in checks.
           // The node is still visible to all checks via startDocument(nodeList) and getChildren().
           continue;
         }
-        scanElement(visitor, node);
+        if (instrumentation == null) {
+          scanElement(visitor, node);
+        } else {
+          instrumentation.scanElement(i, visitor, node);
+        }
       }
     }
 
     // notify visitors for end of document
-    for (DefaultNodeVisitor visitor : visitors) {
-      visitor.endDocument();
+    for (int i = 0; i < visitors.size(); i++) {
+      budget.check(SCANNING);
+      if (instrumentation == null) {
+        visitors.get(i).endDocument();
+      } else {
+        instrumentation.call(i, visitors.get(i), null, Callback.END_DOCUMENT);
+      }
+    }
+    scanEvent.report(path, nodeList.size(), visitors.size());
+  }
+
+  @CheckForNull
+  private Instrumentation instrumentation(String path, List<Node> nodeList, List<DefaultNodeVisitor> visitors) {
+    boolean slowCallbacksRecorded = new SlowVisitorCallbackEvent().isEnabled();
+    if (!profiler.isEnabled() && !slowCallbacksRecorded) {
+      return null;
+    }
+    AnalysisProfiler.Measure[][] visitorMeasures = null;
+    if (profiler.isEnabled()) {
+      visitorMeasures = new AnalysisProfiler.Measure[visitors.size()][];
+      for (int i = 0; i < visitors.size(); i++) {
+        visitorMeasures[i] = measures.computeIfAbsent(visitors.get(i), this::resolveMeasures);
+      }
+    }
+    return new Instrumentation(path, nodeList, visitorMeasures, slowCallbacksRecorded);
+  }
+
+  private AnalysisProfiler.Measure[] resolveMeasures(DefaultNodeVisitor visitor) {
+    String name = profiledName(visitor);
+    Callback[] callbacks = Callback.values();
+    AnalysisProfiler.Measure[] visitorMeasures = new AnalysisProfiler.Measure[callbacks.length];
+    for (Callback callback : callbacks) {
+      visitorMeasures[callback.ordinal()] = profiler.visitorMeasure(name, callback.label);
     }
+    return visitorMeasures;
+  }
+
+  /**
+   * Checks are named after their rule, as several rules may be implemented by the same class.
+   */
+  private static String profiledName(DefaultNodeVisitor visitor) {
+    String className = visitor.getClass().getSimpleName();
+    if (visitor instanceof AbstractPageCheck check && check.getRuleKey() != null) {
+      return check.getRuleKey() + " (" + className + ")";
+    }
+    return className;
   }
 
   /**
@@ -119,4 +229,120 @@ public class HtmlAstScanner {
     }
   }
 
+  private static void call(DefaultNodeVisitor visitor, Callback callback, List<Node> nodeList, @Nullable Node node) {
+    switch (callback) {
+      case START_DOCUMENT:
+        visitor.startDocument(nodeList);
+        break;
+      case START_ELEMENT:
+        visitor.startElement((TagNode) node);
+        break;
+      case END_ELEMENT:
+        visitor.endElement((TagNode) node);
+        break;
+      case CHARACTERS:
+        visitor.characters((TextNode) node);
+        break;
+      case COMMENT:
+        visitor.comment((CommentNode) node);
+        break;
+      case EXPRESSION:
+        visitor.expression((ExpressionNode) node);
+        break;
+      case DIRECTIVE:
+        visitor.directive((DirectiveNode) node);
+        break;
+      case END_DOCUMENT:
+        visitor.endDocument();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * The callbacks of the visitors, as named in the profiling summary and in the JFR events.
+   */
+  private enum Callback {
+    START_DOCUMENT("startDocument"),
+    START_ELEMENT("startElement"),
+    END_ELEMENT("endElement"),
+    CHARACTERS("characters"),
+    COMMENT("comment"),
+    EXPRESSION("expression"),
+    DIRECTIVE("directive"),
+    END_DOCUMENT("endDocument");
+
+    private final String label;
+
+    Callback(String label) {
+      this.label = label;
+    }
+  }
+
+  /**
+   * Measures the callbacks of the visitors during the scan of a file for the profiler, and reports the slow ones to JFR.
+   * The scan only goes through it when one of them is enabled.
+   */
+  private static final class Instrumentation {
+
+    private final String path;
+    private final List<Node> nodeList;
+    // the measures of each callback, indexed like the visitors then by callback, null when the profiler is disabled
+    private final AnalysisProfiler.Measure[][] measures;
+    private final boolean slowCallbacksRecorded;
+
+    private Instrumentation(String path, List<Node> nodeList, @Nullable AnalysisProfiler.Measure[][] measures, boolean slowCallbacksRecorded) {
+      this.path = path;
+      this.nodeList = nodeList;
+      this.measures = measures;
+      this.slowCallbacksRecorded = slowCallbacksRecorded;
+    }
+
+    private void scanElement(int visitorIndex, DefaultNodeVisitor visitor, Node node) {
+      switch (node.getNodeType()) {
+        case TAG:
+          TagNode tag = (TagNode) node;
+          if (!tag.isEndElement()) {
+            call(visitorIndex, visitor, node, Callback.START_ELEMENT);
+          }
+          if (tag.isEndElement() || tag.hasEnd()) {
+            call(visitorIndex, visitor, node, Callback.END_ELEMENT);
+          }
+          break;
+        case TEXT:
+          call(visitorIndex, visitor, node, Callback.CHARACTERS);
+          break;
+        case COMMENT:
+          call(visitorIndex, visitor, node, Callback.COMMENT);
+          break;
+        case EXPRESSION:
+          call(visitorIndex, visitor, node, Callback.EXPRESSION);
+          break;
+        case DIRECTIVE:
+          call(visitorIndex, visitor, node, Callback.DIRECTIVE);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void call(int visitorIndex, DefaultNodeVisitor visitor, @Nullable Node node, Callback callback) {
+      SlowVisitorCallbackEvent event = null;
+      if (slowCallbacksRecorded) {
+        event = new SlowVisitorCallbackEvent();
+        event.begin();
+      }
+      long start = measures == null ? 0L : System.nanoTime();
+      HtmlAstScanner.call(visitor, callback, nodeList, node);
+      if (measures != null) {
+        measures[visitorIndex][callback.ordinal()].add(System.nanoTime() - start);
+      }
+      if (event != null) {
+        event.report(path, visitor, callback.label, node == null ? 0 : node.getStartLinePosition());
+      }
+    }
+
+  }
+
 }
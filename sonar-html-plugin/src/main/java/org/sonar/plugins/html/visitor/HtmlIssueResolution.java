@@ -14,30 +14,15 @@
  * You should have received a copy of the Sonar Source-Available License
  * along with this program; if not, see https://sonarsource.com/license/ssal/
  */
-package org.sonar.plugins.html.core;
+package org.sonar.plugins.html.visitor;
 
-import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.TokenType;
-
-public enum HtmlTokenType implements TokenType {
-  TAG,
-  EXPRESSION,
-  ATTRIBUTE,
-  DOCTYPE;
-
-  @Override
-  public String getName() {
-    return name();
-  }
-
-  @Override
-  public String getValue() {
-    return name();
-  }
-
-  @Override
-  public boolean hasToBeSkippedFromAst(AstNode node) {
-    return false;
-  }
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.sensor.issue.IssueResolution;
+import org.sonar.api.rule.RuleKey;
 
+/**
+ * Issue resolution declared by a {@code sonar-resolve} directive in a comment.
+ */
+public record HtmlIssueResolution(int line, IssueResolution.Status status, Set<RuleKey> ruleKeys, @Nullable String comment) {
 }
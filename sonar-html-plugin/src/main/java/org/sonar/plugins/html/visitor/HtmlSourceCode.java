@@ -16,12 +16,15 @@
  */
 package org.sonar.plugins.html.visitor;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.measures.Metric;
 import org.sonar.plugins.html.api.HtmlConstants;
@@ -33,6 +36,13 @@ public class HtmlSourceCode {
   private final Map<Metric<Integer>, Integer> measures = new HashMap<>();
   private final List<HtmlIssue> issues = new ArrayList<>();
   private Set<Integer> detailedLinesOfCode = new HashSet<>();
+  private HtmlTokens tokens;
+  private Set<Integer> noSonarLines = Set.of();
+  private final List<HtmlIssueResolution> issueResolutions = new ArrayList<>();
+  private String contents;
+  private long readNanos;
+  private int[] lineStartOffsets;
+  private boolean generated;
 
   public HtmlSourceCode(InputFile inputFile) {
     this.inputFile = inputFile;
@@ -42,6 +52,99 @@ public class HtmlSourceCode {
     return inputFile;
   }
 
+  /**
+   * Content of the file. It is read and decoded once, then shared by the lexer and all the visitors.
+   */
+  public String contents() {
+    if (contents == null) {
+      long start = System.nanoTime();
+      try {
+        contents = inputFile.contents();
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot read " + inputFile, e);
+      }
+      readNanos = System.nanoTime() - start;
+    }
+    return contents;
+  }
+
+  /**
+   * Time the first call to {@link #contents()} took to read and decode the file, on whichever thread made it, or 0
+   * when the file has not been read.
+   */
+  public long readNanos() {
+    return readNanos;
+  }
+
+  /**
+   * Number of lines of the file, as counted by the platform: "\n", "\r\n" and "\r" end a line, and a
+   * line terminator at the end of the file is followed by an empty last line.
+   */
+  public int lineCount() {
+    return lineStartOffsets().length;
+  }
+
+  /**
+   * Offset in {@link #contents()} of the first character of the line (1-based).
+   */
+  public int lineStartOffset(int line) {
+    return lineStartOffsets()[line - 1];
+  }
+
+  /**
+   * Offset in {@link #contents()} of the line terminator of the line (1-based), or the length of the content for the last line.
+   */
+  public int lineEndOffset(int line) {
+    int[] starts = lineStartOffsets();
+    if (line == starts.length) {
+      return contents().length();
+    }
+    int end = starts[line] - 1;
+    String text = contents();
+    if (text.charAt(end) == '\n' && end > starts[line - 1] && text.charAt(end - 1) == '\r') {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Text of the line (1-based), without its line terminator.
+   */
+  public String line(int line) {
+    return contents().substring(lineStartOffset(line), lineEndOffset(line));
+  }
+
+  /**
+   * Line (1-based) of the character at the given offset in {@link #contents()}.
+   */
+  public int lineOf(int offset) {
+    int index = Arrays.binarySearch(lineStartOffsets(), offset);
+    return index >= 0 ? (index + 1) : -index - 1;
+  }
+
+  private int[] lineStartOffsets() {
+    if (lineStartOffsets == null) {
+      String text = contents();
+      int[] starts = new int[16];
+      int count = 1;
+      int length = text.length();
+      for (int i = 0; i < length; i++) {
+        char c = text.charAt(i);
+        if (c == '\n' || c == '\r') {
+          if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+            i++;
+          }
+          if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+          }
+          starts[count++] = i + 1;
+        }
+      }
+      lineStartOffsets = Arrays.copyOf(starts, count);
+    }
+    return lineStartOffsets;
+  }
+
   public void addMeasure(Metric<Integer> metric, int value) {
     if (shouldComputeMetric()) {
       measures.put(metric, value);
@@ -77,6 +180,46 @@ public class HtmlSourceCode {
     this.detailedLinesOfCode = detailedLinesOfCode;
   }
 
+  /**
+   * Highlighting and CPD tokens of the file, {@code null} when they were not computed.
+   */
+  @CheckForNull
+  public HtmlTokens getTokens() {
+    return tokens;
+  }
+
+  public void setTokens(HtmlTokens tokens) {
+    this.tokens = tokens;
+  }
+
+  public Set<Integer> getNoSonarLines() {
+    return noSonarLines;
+  }
+
+  public void setNoSonarLines(Set<Integer> noSonarLines) {
+    this.noSonarLines = noSonarLines;
+  }
+
+  public List<HtmlIssueResolution> getIssueResolutions() {
+    return issueResolutions;
+  }
+
+  public void addIssueResolution(HtmlIssueResolution issueResolution) {
+    issueResolutions.add(issueResolution);
+  }
+
+  /**
+   * Whether the file looks minified or generated rather than written by hand, in which case the
+   * {@link HandWrittenSourceVisitor} visitors are skipped and no CPD token is computed.
+   */
+  public boolean isGenerated() {
+    return generated;
+  }
+
+  public void setGenerated(boolean generated) {
+    this.generated = generated;
+  }
+
   public boolean shouldComputeMetric() {
     // if input file has a language other than web, then we should not compute metrics for this file as we assume they will be computed by another plugin
     String language = inputFile.language();
@@ -0,0 +1,54 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+/**
+ * Syntax highlighting and CPD tokens computed for a file.
+ * Visitors only record them; the sensor is the one saving them through the {@code SensorContext}.
+ */
+public class HtmlTokens {
+
+  private final List<Highlighting> highlightings = new ArrayList<>();
+  private final List<CpdToken> cpdTokens = new ArrayList<>();
+
+  public void highlight(int startLine, int startColumn, int endLine, int endColumn, TypeOfText typeOfText) {
+    highlightings.add(new Highlighting(startLine, startColumn, endLine, endColumn, typeOfText));
+  }
+
+  public void addCpdToken(int startLine, int startColumn, int endLine, int endColumn, String image) {
+    cpdTokens.add(new CpdToken(startLine, startColumn, endLine, endColumn, image));
+  }
+
+  public List<Highlighting> getHighlightings() {
+    return highlightings;
+  }
+
+  public List<CpdToken> getCpdTokens() {
+    return cpdTokens;
+  }
+
+  public record Highlighting(int startLine, int startColumn, int endLine, int endColumn, TypeOfText typeOfText) {
+  }
+
+  public record CpdToken(int startLine, int startColumn, int endLine, int endColumn, String image) {
+  }
+
+}
@@ -62,6 +62,7 @@ public class NoSonarScanner extends DefaultNodeVisitor {
   @Override
   public void endDocument() {
     if (noSonarLines != null && !noSonarLines.isEmpty()) {
+      getHtmlSourceCode().setNoSonarLines(noSonarLines);
       noSonarFilter.noSonarInFile(getHtmlSourceCode().inputFile(), noSonarLines);
     }
   }
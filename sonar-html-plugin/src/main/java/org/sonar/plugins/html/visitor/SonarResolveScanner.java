@@ -16,6 +16,7 @@
  */
 package org.sonar.plugins.html.visitor;
 
+import java.util.LinkedHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile;
@@ -73,13 +74,25 @@ public class SonarResolveScanner extends DefaultNodeVisitor {
   }
 
   private void saveIssueResolution(SonarResolve sonarResolve) {
-    InputFile inputFile = getHtmlSourceCode().inputFile();
+    HtmlIssueResolution issueResolution = new HtmlIssueResolution(
+      sonarResolve.targetLine(),
+      sonarResolve.status(),
+      new LinkedHashSet<>(sonarResolve.ruleKeys()),
+      sonarResolve.justification());
+    getHtmlSourceCode().addIssueResolution(issueResolution);
+    saveIssueResolution(context, getHtmlSourceCode().inputFile(), issueResolution);
+  }
+
+  /**
+   * Saves an issue resolution, either found by this scanner or replayed from the analysis cache.
+   */
+  public static void saveIssueResolution(SensorContext context, InputFile inputFile, HtmlIssueResolution issueResolution) {
     context.newIssueResolution()
       .on(inputFile)
-      .at(inputFile.selectLine(sonarResolve.targetLine()))
-      .status(sonarResolve.status())
-      .forRules(sonarResolve.ruleKeys())
-      .comment(sonarResolve.justification())
+      .at(inputFile.selectLine(issueResolution.line()))
+      .status(issueResolution.status())
+      .forRules(issueResolution.ruleKeys())
+      .comment(issueResolution.comment())
       .save();
   }
 
@@ -0,0 +1,77 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.File;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.checks.TestHelper;
+import org.sonar.plugins.html.checks.coding.MaxLineLengthCheck;
+import org.sonar.plugins.html.rules.CheckClasses;
+import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.scanner.plugin.api.impl.rule.DefaultActiveRules;
+import org.sonar.scanner.plugin.api.impl.rule.NewActiveRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckInstanceFactoryTest {
+
+  private static final RuleKey RULE_KEY = RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, "MaxLineLengthCheck");
+
+  @Test
+  void new_instances_are_configured_like_active_checks() {
+    CheckInstanceFactory factory = new CheckInstanceFactory(new CheckFactory(new DefaultActiveRules(List.of(
+      new NewActiveRule.Builder()
+        .setRuleKey(RULE_KEY)
+        .setParam("maxLength", "40")
+        .build())))
+      .create(HtmlRulesDefinition.REPOSITORY_KEY)
+      .addAnnotatedChecks(CheckClasses.getCheckClasses()));
+
+    List<AbstractPageCheck> activeChecks = factory.activeChecks();
+    List<AbstractPageCheck> first = factory.newInstances();
+    List<AbstractPageCheck> second = factory.newInstances();
+
+    assertThat(activeChecks).singleElement().isInstanceOf(MaxLineLengthCheck.class);
+    assertThat(first).singleElement().isInstanceOf(MaxLineLengthCheck.class).isNotSameAs(activeChecks.get(0));
+    assertThat(second).singleElement().isInstanceOf(MaxLineLengthCheck.class).isNotSameAs(first.get(0));
+
+    MaxLineLengthCheck copy = (MaxLineLengthCheck) first.get(0);
+    assertThat(copy.maxLength).isEqualTo(40);
+
+    List<HtmlIssue> issues = TestHelper.scan(new File("src/test/resources/checks/MaxLineLengthCheck.html"), copy).getIssues();
+    assertThat(issues)
+      .hasSize(6)
+      .extracting(HtmlIssue::ruleKey)
+      .containsOnly(RULE_KEY);
+  }
+
+  @Test
+  void no_active_checks() {
+    CheckInstanceFactory factory = new CheckInstanceFactory(new CheckFactory(new DefaultActiveRules(List.of()))
+      .create(HtmlRulesDefinition.REPOSITORY_KEY)
+      .addAnnotatedChecks(CheckClasses.getCheckClasses()));
+
+    assertThat(factory.activeChecks()).isEmpty();
+    assertThat(factory.newInstances()).isEmpty();
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContentPrefetcherTest {
+
+  @Test
+  void files_are_handed_over_in_order_with_their_content() {
+    List<InputFile> inputFiles = inputFiles(20);
+
+    List<HtmlSourceCode> sourceCodes = prefetch(inputFiles, 3, 10);
+
+    assertThat(sourceCodes).extracting(HtmlSourceCode::inputFile).containsExactlyElementsOf(inputFiles);
+    assertThat(sourceCodes).extracting(HtmlSourceCode::contents)
+      .containsExactlyElementsOf(IntStream.range(0, 20).mapToObj(i -> "<p>" + i + "</p>").toList());
+  }
+
+  @Test
+  void files_are_read_on_demand_when_read_ahead_is_disabled() {
+    List<InputFile> inputFiles = inputFiles(3);
+
+    List<HtmlSourceCode> sourceCodes = prefetch(inputFiles, 0, 10);
+
+    assertThat(sourceCodes).extracting(HtmlSourceCode::inputFile).containsExactlyElementsOf(inputFiles);
+  }
+
+  @Test
+  void files_are_handed_over_whatever_the_character_limit() {
+    List<InputFile> inputFiles = inputFiles(5);
+
+    for (long maxCharacters : new long[] {0, -1, 1}) {
+      assertThat(prefetch(inputFiles, 2, maxCharacters)).extracting(HtmlSourceCode::inputFile).containsExactlyElementsOf(inputFiles);
+    }
+  }
+
+  @Test
+  void unreadable_file_is_handed_over() throws IOException {
+    InputFile unreadable = mock(InputFile.class);
+    when(unreadable.contents()).thenThrow(new IOException("boom"));
+
+    List<HtmlSourceCode> sourceCodes = prefetch(List.of(unreadable), 2, 10);
+
+    assertThat(sourceCodes).singleElement().satisfies(sourceCode ->
+      assertThatThrownBy(sourceCode::contents).isInstanceOf(IllegalStateException.class).hasRootCauseMessage("boom"));
+  }
+
+  private static List<HtmlSourceCode> prefetch(List<InputFile> inputFiles, int maxFiles, long maxCharacters) {
+    List<HtmlSourceCode> sourceCodes = new ArrayList<>();
+    try (ContentPrefetcher prefetcher = ContentPrefetcher.start(inputFiles, maxFiles, maxCharacters)) {
+      prefetcher.forEachRemaining(sourceCodes::add);
+    }
+    return sourceCodes;
+  }
+
+  private static List<InputFile> inputFiles(int count) {
+    return IntStream.range(0, count)
+      .mapToObj(i -> (InputFile) new TestInputFileBuilder("key", "file" + i + ".html")
+        .setContents("<p>" + i + "</p>")
+        .setCharset(StandardCharsets.UTF_8)
+        .build())
+      .toList();
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeneratedFileDetectorTest {
+
+  private static final String INDENTED_ROW = "    <tr>\n      <td class=\"name\">Name</td>\n      <td class=\"value\">Value</td>\n    </tr>\n";
+
+  @Test
+  void small_file_is_never_generated() {
+    assertThat(GeneratedFileDetector.generatedReason(sourceCode("<p>" + "x".repeat(1000) + "</p>"))).isNull();
+  }
+
+  @Test
+  void indented_markup_is_hand_written() {
+    assertThat(GeneratedFileDetector.generatedReason(sourceCode("<table>\n" + INDENTED_ROW.repeat(50) + "</table>\n"))).isNull();
+  }
+
+  @Test
+  void markup_on_long_lines_is_generated() {
+    String row = "<tr><td class=\"name\">Name</td><td class=\"value\">Value</td></tr>";
+    String contents = "<table>\n" + (row.repeat(10) + "\n").repeat(10) + "</table>\n";
+    assertThat(GeneratedFileDetector.generatedReason(sourceCode(contents))).startsWith("average line length of ");
+  }
+
+  @Test
+  void markup_without_whitespace_is_generated() {
+    String row = "<tr><td>Name</td><td>Value</td></tr>\n";
+    assertThat(GeneratedFileDetector.generatedReason(sourceCode("<table>\n" + row.repeat(100) + "</table>\n")))
+      .startsWith("whitespace ratio of ");
+  }
+
+  @Test
+  void markup_with_generator_meta_tag_is_generated() {
+    String head = "<html>\n  <head>\n    <meta content=\"Hugo 0.120.4\" NAME=\"Generator\">\n  </head>\n";
+    assertThat(GeneratedFileDetector.generatedReason(sourceCode(head + "<table>\n" + INDENTED_ROW.repeat(50) + "</table>\n")))
+      .isEqualTo("generator meta tag");
+  }
+
+  private static HtmlSourceCode sourceCode(String contents) {
+    return new HtmlSourceCode(new TestInputFileBuilder("key", "file.html")
+      .setContents(contents)
+      .setCharset(StandardCharsets.UTF_8)
+      .build());
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HeapPressureControllerTest {
+
+  private static final long MB = 1024L * 1024L;
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  private final AtomicLong usedHeap = new AtomicLong(100 * MB);
+  private final HeapPressureController controller = new HeapPressureController(usedHeap::get, 500 * MB);
+
+  @Test
+  void files_start_while_heap_is_below_limit() throws InterruptedException {
+    controller.acquire(100 * MB);
+    controller.acquire(100 * MB);
+
+    assertThat(controller.throttles()).isZero();
+  }
+
+  @Test
+  void first_file_always_starts() throws InterruptedException {
+    usedHeap.set(600 * MB);
+
+    controller.acquire(100 * MB);
+
+    assertThat(controller.throttles()).isZero();
+  }
+
+  @Test
+  void file_waits_until_heap_is_available() throws Exception {
+    controller.acquire(300 * MB);
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+      try {
+        controller.acquire(200 * MB);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    Thread.sleep(200);
+    assertThat(second).isNotDone();
+    controller.release(300 * MB);
+    second.get(5, TimeUnit.SECONDS);
+
+    assertThat(controller.throttles()).isEqualTo(1);
+    assertThat(logTester.logs(Level.INFO))
+      .contains("Throttling the analysis of HTML files because of heap pressure: 100 MB used, 300 MB reserved by 1 files being analyzed, "
+        + "200 MB needed, limit of 500 MB");
+  }
+
+  @Test
+  void file_starts_once_garbage_is_collected() throws Exception {
+    usedHeap.set(400 * MB);
+    controller.acquire(50 * MB);
+    CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+      try {
+        controller.acquire(100 * MB);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    Thread.sleep(200);
+    assertThat(second).isNotDone();
+    usedHeap.set(100 * MB);
+    second.get(5, TimeUnit.SECONDS);
+
+    assertThat(controller.throttles()).isEqualTo(1);
+  }
+
+  @Test
+  void no_controller_without_valid_percentage() {
+    assertThat(HeapPressureController.forMaxHeapUsage(0)).isNull();
+    assertThat(HeapPressureController.forMaxHeapUsage(100)).isNull();
+    assertThat(HeapPressureController.forMaxHeapUsage(75)).isNotNull();
+  }
+
+  @Test
+  void estimate_does_not_read_the_file(@TempDir Path tempDir) throws IOException {
+    Path file = Files.writeString(tempDir.resolve("file.html"), "<p>text</p>");
+    InputFile inputFile = mock(InputFile.class);
+    when(inputFile.path()).thenReturn(file);
+
+    assertThat(HeapPressureController.estimate(new HtmlSourceCode(inputFile))).isEqualTo(11 * HeapPressureController.BYTES_PER_CHARACTER);
+    verify(inputFile, never()).contents();
+  }
+
+}
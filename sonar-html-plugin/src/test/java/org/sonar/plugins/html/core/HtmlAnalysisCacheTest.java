@@ -0,0 +1,124 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.SensorContextTester;
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.issue.IssueResolution;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.checks.PreciseHtmlIssue;
+import org.sonar.plugins.html.visitor.HtmlIssueResolution;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlTokens;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HtmlAnalysisCacheTest {
+
+  private static final RuleKey RULE_KEY = RuleKey.of("Web", "S1234");
+
+  private final InputFile inputFile = new TestInputFileBuilder("key", "file.html")
+    .setLanguage(HtmlConstants.LANGUAGE_KEY)
+    .setContents("<p>\n\t<b>bold</b>\n</p>\n")
+    .setCharset(StandardCharsets.UTF_8)
+    .build();
+
+  @Test
+  void serialized_results_are_restored() throws IOException {
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+    sourceCode.addMeasure(CoreMetrics.NCLOC, 3);
+    sourceCode.addMeasure(CoreMetrics.COMPLEXITY, 1);
+    sourceCode.addIssue(new HtmlIssue(RULE_KEY, null, "file level"));
+    sourceCode.addIssue(new HtmlIssue(RULE_KEY, 2, "with cost", 2.5));
+    sourceCode.addIssue(new PreciseHtmlIssue(RULE_KEY, 2, "precise é", 1, 2, 4));
+    sourceCode.setDetailedLinesOfCode(Set.of(1, 2, 3));
+    HtmlTokens tokens = new HtmlTokens();
+    tokens.highlight(1, 0, 1, 3, TypeOfText.KEYWORD);
+    tokens.addCpdToken(2, 1, 2, 4, "<b>");
+    sourceCode.setTokens(tokens);
+    sourceCode.setNoSonarLines(Set.of(2));
+    sourceCode.addIssueResolution(new HtmlIssueResolution(3, IssueResolution.Status.FALSE_POSITIVE, Set.of(RULE_KEY), "not an issue"));
+    sourceCode.addIssueResolution(new HtmlIssueResolution(1, IssueResolution.Status.DEFAULT, Set.of(RULE_KEY), null));
+
+    HtmlSourceCode restored = HtmlAnalysisCache.deserialize(inputFile, HtmlAnalysisCache.serialize(sourceCode));
+
+    assertThat(restored.getMeasures()).isEqualTo(sourceCode.getMeasures());
+    assertThat(restored.getIssues())
+      .extracting(HtmlIssue::ruleKey, HtmlIssue::line, HtmlIssue::message, HtmlIssue::cost)
+      .containsExactly(
+        tuple(RULE_KEY, null, "file level", null),
+        tuple(RULE_KEY, 2, "with cost", 2.5),
+        tuple(RULE_KEY, 2, "precise é", null));
+    PreciseHtmlIssue preciseIssue = (PreciseHtmlIssue) restored.getIssues().get(2);
+    assertThat(preciseIssue.startColumn()).isEqualTo(1);
+    assertThat(preciseIssue.endLine()).isEqualTo(2);
+    assertThat(preciseIssue.endColumn()).isEqualTo(4);
+    assertThat(restored.getDetailedLinesOfCode()).containsExactlyInAnyOrder(1, 2, 3);
+    assertThat(restored.getTokens().getHighlightings()).isEqualTo(tokens.getHighlightings());
+    assertThat(restored.getTokens().getCpdTokens()).isEqualTo(tokens.getCpdTokens());
+    assertThat(restored.getNoSonarLines()).containsExactly(2);
+    assertThat(restored.getIssueResolutions()).isEqualTo(sourceCode.getIssueResolutions());
+  }
+
+  @Test
+  void results_without_tokens_are_restored() throws IOException {
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    HtmlSourceCode restored = HtmlAnalysisCache.deserialize(inputFile, HtmlAnalysisCache.serialize(sourceCode));
+
+    assertThat(restored.getTokens()).isNull();
+    assertThat(restored.getIssues()).isEmpty();
+    assertThat(restored.getMeasures()).isEmpty();
+  }
+
+  @Test
+  void no_key_when_cache_is_disabled() {
+    SensorContextTester context = SensorContextTester.create(Paths.get("."));
+    context.setCacheEnabled(false);
+
+    assertThat(new HtmlAnalysisCache(context, "config").key(new HtmlSourceCode(inputFile))).isNull();
+  }
+
+  @Test
+  void key_depends_on_content_and_configuration() {
+    SensorContextTester context = SensorContextTester.create(Paths.get("."));
+    context.setCacheEnabled(true);
+    InputFile changedFile = new TestInputFileBuilder("key", "file.html")
+      .setLanguage(HtmlConstants.LANGUAGE_KEY)
+      .setContents("<p>\n</p>\n")
+      .setCharset(StandardCharsets.UTF_8)
+      .build();
+
+    String key = new HtmlAnalysisCache(context, "config").key(new HtmlSourceCode(inputFile));
+
+    assertThat(key).isNotNull().isEqualTo(new HtmlAnalysisCache(context, "config").key(new HtmlSourceCode(inputFile)));
+    assertThat(new HtmlAnalysisCache(context, "config").key(new HtmlSourceCode(changedFile))).isNotEqualTo(key);
+    assertThat(new HtmlAnalysisCache(context, "other config").key(new HtmlSourceCode(inputFile))).isNotEqualTo(key);
+  }
+
+}
@@ -24,15 +24,24 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mockito;
+import org.slf4j.event.Level;
 import org.sonar.api.SonarEdition;
 import org.sonar.api.SonarQubeSide;
 import org.sonar.api.SonarRuntime;
@@ -53,6 +62,7 @@ import org.sonar.api.utils.Version;
 import org.sonar.plugins.html.api.HtmlConstants;
 import org.sonar.plugins.html.checks.sonar.AllowedLangAttributeCheck;
 import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.scanner.plugin.api.impl.config.MapSettings;
 import org.sonar.scanner.plugin.api.impl.fs.DefaultInputFile;
 import org.sonar.scanner.plugin.api.impl.rule.DefaultActiveRules;
 import org.sonar.scanner.plugin.api.impl.rule.NewActiveRule;
@@ -67,6 +77,8 @@ import static org.mockito.Mockito.when;
 class HtmlSensorTest {
 
   private static final Path TEST_DIR = Paths.get("src/test/resources/src/main/webapp");
+  private static final SonarRuntime SONAR_RUNTIME = TestSonarRuntime.forSonarQube(Version.create(8, 9), SonarQubeSide.SCANNER,
+    SonarEdition.COMMUNITY);
 
   private HtmlSensor sensor;
   private SensorContextTester tester;
@@ -77,8 +89,22 @@ class HtmlSensorTest {
 
   @BeforeEach
   void setUp() {
-    final SonarRuntime sonarRuntime = TestSonarRuntime.forSonarQube(Version.create(8, 9), SonarQubeSide.SCANNER, SonarEdition.COMMUNITY);
-    HtmlRulesDefinition rulesDefinition = new HtmlRulesDefinition(sonarRuntime);
+    sensor = createSensor(fileLinesContextFactory());
+    tester = SensorContextTester.create(TEST_DIR).setRuntime(SONAR_RUNTIME);
+  }
+
+  private static FileLinesContextFactory fileLinesContextFactory() {
+    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+    when(fileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+    return fileLinesContextFactory;
+  }
+
+  private HtmlSensor createSensor(FileLinesContextFactory fileLinesContextFactory) {
+    return createSensor(fileLinesContextFactory, PluginVersion.get());
+  }
+
+  private HtmlSensor createSensor(FileLinesContextFactory fileLinesContextFactory, String pluginVersion) {
+    HtmlRulesDefinition rulesDefinition = new HtmlRulesDefinition(SONAR_RUNTIME);
     RulesDefinition.Context context = new RulesDefinition.Context();
     rulesDefinition.define(context);
     RulesDefinition.Repository repository = context.repository(HtmlRulesDefinition.REPOSITORY_KEY);
@@ -90,12 +116,9 @@ class HtmlSensorTest {
     ActiveRules activeRules = new DefaultActiveRules(ar);
 
     CheckFactory checkFactory = new CheckFactory(activeRules);
-    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
-    when(fileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
     analysisWarnings = new RecordingAnalysisWarnings();
-    sensor = new HtmlSensor(sonarRuntime, new DefaultNoSonarFilter(), fileLinesContextFactory, checkFactory,
-      new AnalysisWarningsWrapper(analysisWarnings));
-    tester = SensorContextTester.create(TEST_DIR).setRuntime(sonarRuntime);
+    return new HtmlSensor(SONAR_RUNTIME, new DefaultNoSonarFilter(), fileLinesContextFactory, checkFactory,
+      new AnalysisWarningsWrapper(analysisWarnings), pluginVersion);
   }
 
   /**
@@ -135,6 +158,357 @@ class HtmlSensorTest {
     assertThat(tester.allIssues()).isEmpty();
   }
 
+  @Test
+  void parallel_analysis_saves_same_results_as_sequential_analysis() throws IOException {
+    List<String> fileNames = List.of("user-properties.jsp", "foo.vue", "foo.htm", "foo.twig", "create-salesorder.xhtml");
+    SensorContextTester sequential = analyzeFiles(fileNames, 1);
+    SensorContextTester parallel = analyzeFiles(fileNames, 4);
+
+    for (String fileName : fileNames) {
+      String componentKey = "key:" + fileName;
+      assertThat(parallel.measure(componentKey, CoreMetrics.NCLOC).value())
+        .isEqualTo(sequential.measure(componentKey, CoreMetrics.NCLOC).value());
+      assertThat(parallel.measure(componentKey, CoreMetrics.COMPLEXITY).value())
+        .isEqualTo(sequential.measure(componentKey, CoreMetrics.COMPLEXITY).value());
+      assertThat(parallel.cpdTokens(componentKey)).hasSameSizeAs(sequential.cpdTokens(componentKey));
+    }
+    assertThat(issueDescriptions(parallel))
+      .isNotEmpty()
+      .containsExactlyInAnyOrderElementsOf(issueDescriptions(sequential));
+    assertThat(parallel.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  void pipelined_analysis_saves_same_results_as_sequential_analysis() throws IOException {
+    List<String> fileNames = List.of("user-properties.jsp", "foo.vue", "foo.htm", "foo.twig", "create-salesorder.xhtml");
+    SensorContextTester sequential = analyzeFiles(fileNames, 1);
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.ANALYSIS_PIPELINE_PROP_KEY, true);
+    SensorContextTester pipelined = analyzeFiles(fileNames, settings);
+
+    for (String fileName : fileNames) {
+      String componentKey = "key:" + fileName;
+      assertThat(pipelined.measure(componentKey, CoreMetrics.NCLOC).value())
+        .isEqualTo(sequential.measure(componentKey, CoreMetrics.NCLOC).value());
+      assertThat(pipelined.cpdTokens(componentKey)).hasSameSizeAs(sequential.cpdTokens(componentKey));
+    }
+    assertThat(issueDescriptions(pipelined))
+      .isNotEmpty()
+      .containsExactlyElementsOf(issueDescriptions(sequential));
+    assertThat(pipelined.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  void read_ahead_saves_same_results() throws IOException {
+    List<String> fileNames = List.of("user-properties.jsp", "foo.vue", "foo.htm", "foo.twig", "create-salesorder.xhtml");
+    SensorContextTester expected = analyzeFiles(fileNames, new MapSettings());
+    MapSettings settings = analysisThreads(2);
+    settings.setProperty(HtmlConstants.PREFETCH_FILES_PROP_KEY, 2);
+    settings.setProperty(HtmlConstants.PREFETCH_MAX_CHARACTERS_PROP_KEY, 1_000);
+    SensorContextTester prefetched = analyzeFiles(fileNames, settings);
+
+    assertThat(issueDescriptions(prefetched))
+      .isNotEmpty()
+      .containsExactlyInAnyOrderElementsOf(issueDescriptions(expected));
+    assertThat(prefetched.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  void slow_file_does_not_hold_back_the_files_analyzed_meanwhile() throws IOException {
+    int smallFiles = 20;
+    CountDownLatch smallFilesSaved = new CountDownLatch(smallFiles);
+    FileLinesContextFactory countingFileLinesContextFactory = mock(FileLinesContextFactory.class);
+    when(countingFileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenAnswer(invocation -> {
+      smallFilesSaved.countDown();
+      return mock(FileLinesContext.class);
+    });
+    HtmlSensor parallelSensor = createSensor(countingFileLinesContextFactory);
+    tester.setSettings(analysisThreads(2));
+    // the slow file is read by its worker once all the small files are saved, or after a timeout
+    AtomicBoolean smallFilesSavedFirst = new AtomicBoolean();
+    DefaultInputFile slowFile = Mockito.spy(createInputFile("slow.html", "<p>slow</p>\n"));
+    Mockito.doAnswer(invocation -> {
+      smallFilesSavedFirst.set(smallFilesSaved.await(10, TimeUnit.SECONDS));
+      return invocation.callRealMethod();
+    }).when(slowFile).contents();
+    tester.fileSystem().add(slowFile);
+    for (int i = 0; i < smallFiles; i++) {
+      tester.fileSystem().add(createInputFile("file" + i + ".html", "<p>small</p>\n"));
+    }
+
+    parallelSensor.execute(tester);
+
+    assertThat(smallFilesSavedFirst).isTrue();
+    assertThat(tester.measure(slowFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(tester.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  void parallel_analysis_cancellation() throws IOException {
+    tester.setSettings(analysisThreads(4));
+    tester.fileSystem().add(createInputFile(TEST_DIR, "user-properties.jsp"));
+    tester.fileSystem().add(createInputFile(TEST_DIR, "foo.htm"));
+    tester.setCancelled(true);
+
+    sensor.execute(tester);
+
+    assertThat(tester.allIssues()).isEmpty();
+  }
+
+  @Test
+  void file_exceeding_time_budget_is_reported_as_analysis_error() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.FILE_TIME_BUDGET_PROP_KEY, 1);
+    tester.setSettings(settings);
+    DefaultInputFile inputFile = createInputFile("huge.html", "<p>text</p>\n".repeat(200_000));
+    tester.fileSystem().add(inputFile);
+
+    sensor.execute(tester);
+
+    assertThat(tester.allAnalysisErrors()).singleElement().satisfies(error -> {
+      assertThat(error.inputFile()).isEqualTo(inputFile);
+      assertThat(error.message()).startsWith("Analysis aborted after ").contains("the time budget per file is 1 ms");
+    });
+    assertThat(tester.allIssues()).isEmpty();
+    assertThat(tester.measure(inputFile.key(), CoreMetrics.NCLOC)).isNull();
+    assertThat(logTester.logs(Level.WARN)).anyMatch(log -> log.startsWith("Cannot analyze file ") && log.contains(": Analysis aborted after "));
+  }
+
+  @Test
+  void time_waiting_in_pipeline_is_not_charged_to_file_time_budget() {
+    // saving a file takes longer than the budget, so the files lexed ahead wait longer than the budget to be scanned
+    FileLinesContextFactory slowFileLinesContextFactory = mock(FileLinesContextFactory.class);
+    when(slowFileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenAnswer(invocation -> {
+      Thread.sleep(600);
+      return mock(FileLinesContext.class);
+    });
+    HtmlSensor pipelinedSensor = createSensor(slowFileLinesContextFactory);
+    MapSettings settings = pipeline();
+    settings.setProperty(HtmlConstants.FILE_TIME_BUDGET_PROP_KEY, 1_000);
+    tester.setSettings(settings);
+    for (int i = 0; i < 4; i++) {
+      tester.fileSystem().add(createInputFile("file" + i + ".html", "<div>\n<p>text</p>\n</div>\n"));
+    }
+
+    pipelinedSensor.execute(tester);
+
+    assertThat(tester.allAnalysisErrors()).isEmpty();
+    assertThat(tester.measure("key:file3.html", CoreMetrics.NCLOC)).isNotNull();
+  }
+
+  @Test
+  void file_exceeding_degraded_tier_threshold_is_analyzed_without_costly_visitors() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.DEGRADED_TIER_LINE_LENGTH_PROP_KEY, 80);
+    tester.setSettings(settings);
+    String table = "<table><tr><td>1</td></tr></table>";
+    DefaultInputFile minified = createInputFile("minified.html", "<html><body>" + table + "<img src=\"a.png\">".repeat(3) + "</body></html>");
+    DefaultInputFile regular = createInputFile("regular.html", "<html>\n<body>\n" + table + "\n<img src=\"a.png\">\n</body>\n</html>\n");
+    tester.fileSystem().add(minified);
+    tester.fileSystem().add(regular);
+
+    sensor.execute(tester);
+
+    assertThat(tester.cpdTokens(minified.key())).isNull();
+    assertThat(tester.highlightingTypeAt(minified.key(), 1, 0)).isEmpty();
+    assertThat(tester.measure(minified.key(), CoreMetrics.NCLOC).value()).isEqualTo(1);
+    assertThat(issueDescriptions(tester))
+      .anyMatch(issue -> issue.startsWith(minified.key() + " Web:ImgWithoutAltCheck "))
+      .noneMatch(issue -> issue.startsWith(minified.key() + " Web:S5256 "))
+      .anyMatch(issue -> issue.startsWith(regular.key() + " Web:S5256 "));
+    assertThat(tester.cpdTokens(regular.key())).isNotEmpty();
+    assertThat(logTester.logs(Level.INFO))
+      .contains("Analyzing " + minified + " in the degraded tier, without highlighting, duplication and cross-node rules: "
+        + "a line of 111 characters exceeds the limit of 80");
+    assertThat(logTester.logs(Level.INFO)).noneMatch(log -> log.startsWith("Analyzing " + regular + " "));
+  }
+
+  @Test
+  void no_file_is_analyzed_in_degraded_tier_by_default() {
+    DefaultInputFile minified = createInputFile("minified.html", "<p>text</p>".repeat(10_000));
+    tester.fileSystem().add(minified);
+
+    sensor.execute(tester);
+
+    assertThat(tester.highlightingTypeAt(minified.key(), 1, 0)).containsOnly(TypeOfText.KEYWORD);
+    assertThat(logTester.logs(Level.INFO)).noneMatch(log -> log.contains(" in the degraded tier"));
+  }
+
+  @Test
+  void generated_file_is_analyzed_without_layout_rules_and_duplication() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.GENERATED_FILE_DETECTION_PROP_KEY, true);
+    tester.setSettings(settings);
+    String row = "\t<tr><td class=\"name\">Name</td><td class=\"value\"><img src=\"a.png\"></td></tr>";
+    DefaultInputFile generated = createInputFile("generated.html", "<table>\n" + (row.repeat(10) + "\n").repeat(10) + "</table>\n");
+    tester.fileSystem().add(generated);
+
+    sensor.execute(tester);
+
+    assertThat(tester.cpdTokens(generated.key())).isEmpty();
+    assertThat(tester.highlightingTypeAt(generated.key(), 2, 1)).containsOnly(TypeOfText.KEYWORD);
+    assertThat(issueDescriptions(tester))
+      .anyMatch(issue -> issue.contains(" Web:ImgWithoutAltCheck "))
+      .noneMatch(issue -> issue.contains(" Web:IllegalTabCheck "))
+      .noneMatch(issue -> issue.contains(" Web:MaxLineLengthCheck "));
+  }
+
+  @Test
+  void generated_file_detection_is_disabled_by_default() {
+    String row = "\t<tr><td class=\"name\">Name</td><td class=\"value\">Value</td></tr>";
+    DefaultInputFile generated = createInputFile("generated.html", "<table>\n" + (row.repeat(10) + "\n").repeat(10) + "</table>\n");
+    tester.fileSystem().add(generated);
+
+    sensor.execute(tester);
+
+    assertThat(tester.cpdTokens(generated.key())).isNotEmpty();
+    assertThat(issueDescriptions(tester))
+      .anyMatch(issue -> issue.contains(" Web:IllegalTabCheck "))
+      .anyMatch(issue -> issue.contains(" Web:MaxLineLengthCheck "));
+  }
+
+  @Test
+  void jfr_events_are_recorded(@TempDir Path tempDir) throws IOException {
+    DefaultInputFile inputFile = createInputFile(TEST_DIR, "user-properties.jsp");
+    tester.fileSystem().add(inputFile);
+    Path dump = tempDir.resolve("analysis.jfr");
+
+    try (Recording recording = new Recording()) {
+      for (String event : List.of("FileAnalyzed", "Lex", "PhpEmbeddedExpansion", "Scan", "SlowVisitorCallback")) {
+        recording.enable("org.sonar.plugins.html." + event).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+      sensor.execute(tester);
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+    assertThat(events)
+      .filteredOn(event -> event.getEventType().getName().equals("org.sonar.plugins.html.FileAnalyzed"))
+      .singleElement()
+      .satisfies(event -> {
+        assertThat(event.getString("path")).isEqualTo(inputFile.toString());
+        assertThat(event.getLong("size")).isEqualTo(inputFile.contents().length());
+        assertThat(event.getInt("nodeCount")).isPositive();
+        assertThat(event.getString("tier")).isEqualTo("FULL");
+        assertThat(event.getBoolean("failed")).isFalse();
+        assertThat(event.getDuration("lexingTime")).isGreaterThan(Duration.ZERO);
+      });
+    assertThat(events).extracting(event -> event.getEventType().getName())
+      .contains("org.sonar.plugins.html.Lex", "org.sonar.plugins.html.PhpEmbeddedExpansion", "org.sonar.plugins.html.Scan",
+        "org.sonar.plugins.html.SlowVisitorCallback");
+  }
+
+  @Test
+  void profiling_summary_is_logged() throws IOException {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.ANALYSIS_PROFILING_PROP_KEY, true);
+    tester.setSettings(settings);
+    tester.fileSystem().add(createInputFile(TEST_DIR, "user-properties.jsp"));
+
+    sensor.execute(tester);
+
+    assertThat(logTester.logs(Level.INFO)).anySatisfy(log -> assertThat(log)
+      .startsWith("HTML analysis profile")
+      .contains("read: ", "lex: ", "hierarchy build: ", "scan: ", "save: ")
+      .contains("ComplexityVisitor: ", "startDocument: ", "startElement: ", "endElement: ")
+      .containsPattern("Web:\\w+ \\(\\w+Check\\): ")
+      .doesNotContain("startElement/endElement"));
+  }
+
+  @Test
+  void profiling_summary_includes_files_read_ahead_or_replayed_from_cache() throws IOException {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.ANALYSIS_PROFILING_PROP_KEY, true);
+    settings.setProperty(HtmlConstants.PREFETCH_FILES_PROP_KEY, 2);
+    InMemoryAnalysisCache firstCache = new InMemoryAnalysisCache();
+    analyzeWithCache(firstCache, settings, createInputFile(TEST_DIR, "user-properties.jsp"), createInputFile(TEST_DIR, "foo.htm"));
+    logTester.clear();
+
+    analyzeWithCache(new InMemoryAnalysisCache(firstCache.written()), settings, createInputFile(TEST_DIR, "user-properties.jsp"),
+      createInputFile(TEST_DIR, "foo.htm"));
+
+    assertThat(logTester.logs(Level.INFO)).anySatisfy(log -> assertThat(log)
+      .startsWith("HTML analysis profile")
+      .containsPattern("read: \\d+ ms \\(2 calls\\)")
+      .doesNotContain("lex: "));
+  }
+
+  @Test
+  void no_profiling_by_default() throws IOException {
+    tester.fileSystem().add(createInputFile(TEST_DIR, "user-properties.jsp"));
+
+    sensor.execute(tester);
+
+    assertThat(logTester.logs(Level.INFO)).noneMatch(log -> log.startsWith("HTML analysis profile"));
+  }
+
+  @Test
+  void results_of_unchanged_files_are_replayed_from_cache() throws IOException {
+    InMemoryAnalysisCache firstCache = new InMemoryAnalysisCache();
+    SensorContextTester first = analyzeWithCache(firstCache, createInputFile(TEST_DIR, "user-properties.jsp"));
+    assertThat(firstCache.written()).hasSize(1);
+    assertThat(firstCache.copiedFromPrevious()).isEmpty();
+
+    InMemoryAnalysisCache secondCache = new InMemoryAnalysisCache(firstCache.written());
+    SensorContextTester second = analyzeWithCache(secondCache, createInputFile(TEST_DIR, "user-properties.jsp"));
+    assertThat(secondCache.copiedFromPrevious()).containsExactlyElementsOf(firstCache.written().keySet());
+
+    String componentKey = "key:user-properties.jsp";
+    assertThat(second.measure(componentKey, CoreMetrics.NCLOC).value()).isEqualTo(224);
+    assertThat(second.measure(componentKey, CoreMetrics.COMMENT_LINES).value()).isEqualTo(14);
+    assertThat(second.measure(componentKey, CoreMetrics.COMPLEXITY).value()).isEqualTo(1);
+    assertThat(second.cpdTokens(componentKey)).hasSize(224);
+    assertThat(second.highlightingTypeAt(componentKey, 19, 0)).containsOnly(TypeOfText.ANNOTATION);
+    assertThat(issueDescriptions(second)).hasSize(107).containsExactlyElementsOf(issueDescriptions(first));
+  }
+
+  @Test
+  void results_of_unchanged_files_are_replayed_from_cache_by_workers() throws IOException {
+    for (MapSettings settings : List.of(analysisThreads(2), pipeline())) {
+      InMemoryAnalysisCache firstCache = new InMemoryAnalysisCache();
+      SensorContextTester first = analyzeWithCache(firstCache, settings, createInputFile(TEST_DIR, "user-properties.jsp"),
+        createInputFile(TEST_DIR, "foo.htm"));
+      assertThat(firstCache.written()).hasSize(2);
+
+      InMemoryAnalysisCache secondCache = new InMemoryAnalysisCache(firstCache.written());
+      SensorContextTester second = analyzeWithCache(secondCache, settings, createInputFile(TEST_DIR, "user-properties.jsp"),
+        createInputFile(TEST_DIR, "foo.htm"));
+      assertThat(secondCache.copiedFromPrevious()).containsExactlyInAnyOrderElementsOf(firstCache.written().keySet());
+      assertThat(issueDescriptions(second)).isNotEmpty().containsExactlyInAnyOrderElementsOf(issueDescriptions(first));
+      assertThat(second.allAnalysisErrors()).isEmpty();
+    }
+  }
+
+  @Test
+  void changed_files_are_analyzed_again() {
+    InMemoryAnalysisCache firstCache = new InMemoryAnalysisCache();
+    analyzeWithCache(firstCache, createInputFile("changed.html", "<div>\n</div>\n"));
+
+    InMemoryAnalysisCache secondCache = new InMemoryAnalysisCache(firstCache.written());
+    SensorContextTester second = analyzeWithCache(secondCache, createInputFile("changed.html", "<div>\n<p>\n</div>\n"));
+
+    assertThat(secondCache.copiedFromPrevious()).isEmpty();
+    assertThat(secondCache.written()).hasSize(1).doesNotContainKeys(firstCache.written().keySet().toArray(String[]::new));
+    assertThat(second.measure("key:changed.html", CoreMetrics.NCLOC).value()).isEqualTo(3);
+  }
+
+  @Test
+  void results_of_another_plugin_version_are_not_replayed() {
+    InMemoryAnalysisCache firstCache = new InMemoryAnalysisCache();
+    analyzeWithCache(createSensor(fileLinesContextFactory(), "1.0"), firstCache, new MapSettings(),
+      createInputFile("unchanged.html", "<div>\n</div>\n"));
+
+    InMemoryAnalysisCache secondCache = new InMemoryAnalysisCache(firstCache.written());
+    SensorContextTester second = analyzeWithCache(createSensor(fileLinesContextFactory(), "1.1"), secondCache, new MapSettings(),
+      createInputFile("unchanged.html", "<div>\n</div>\n"));
+
+    assertThat(secondCache.copiedFromPrevious()).isEmpty();
+    assertThat(secondCache.written()).hasSize(1).doesNotContainKeys(firstCache.written().keySet().toArray(String[]::new));
+    assertThat(second.measure("key:unchanged.html", CoreMetrics.NCLOC).value()).isEqualTo(2);
+  }
+
   @Test
   void adds_analysis_warning_when_allowed_languages_are_empty() throws IOException {
     DefaultInputFile inputFile = createInputFile(TEST_DIR, "user-properties.jsp");
@@ -358,6 +732,60 @@ class HtmlSensorTest {
     assertThat(tester.allAnalysisErrors()).isEmpty();
   }
 
+  private SensorContextTester analyzeFiles(List<String> fileNames, int threads) throws IOException {
+    return analyzeFiles(fileNames, analysisThreads(threads));
+  }
+
+  private SensorContextTester analyzeFiles(List<String> fileNames, MapSettings settings) throws IOException {
+    SensorContextTester context = SensorContextTester.create(TEST_DIR).setRuntime(tester.runtime());
+    context.setSettings(settings);
+    for (String fileName : fileNames) {
+      context.fileSystem().add(createInputFile(TEST_DIR, fileName));
+    }
+    sensor.execute(context);
+    return context;
+  }
+
+  private SensorContextTester analyzeWithCache(InMemoryAnalysisCache cache, DefaultInputFile inputFile) {
+    return analyzeWithCache(cache, new MapSettings(), inputFile);
+  }
+
+  private SensorContextTester analyzeWithCache(InMemoryAnalysisCache cache, MapSettings settings, DefaultInputFile... inputFiles) {
+    return analyzeWithCache(sensor, cache, settings, inputFiles);
+  }
+
+  private SensorContextTester analyzeWithCache(HtmlSensor htmlSensor, InMemoryAnalysisCache cache, MapSettings settings,
+    DefaultInputFile... inputFiles) {
+    SensorContextTester context = SensorContextTester.create(TEST_DIR).setRuntime(tester.runtime());
+    context.setSettings(settings);
+    context.setCacheEnabled(true);
+    context.setPreviousCache(cache);
+    context.setNextCache(cache);
+    for (DefaultInputFile inputFile : inputFiles) {
+      context.fileSystem().add(inputFile);
+    }
+    htmlSensor.execute(context);
+    return context;
+  }
+
+  private static MapSettings analysisThreads(int threads) {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.ANALYSIS_THREADS_PROP_KEY, threads);
+    return settings;
+  }
+
+  private static MapSettings pipeline() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(HtmlConstants.ANALYSIS_PIPELINE_PROP_KEY, true);
+    return settings;
+  }
+
+  private static List<String> issueDescriptions(SensorContextTester context) {
+    return context.allIssues().stream()
+      .map(issue -> issue.primaryLocation().inputComponent().key() + " " + issue.ruleKey() + " " + issue.primaryLocation().message())
+      .toList();
+  }
+
   private DefaultInputFile createInputFile(Path dir, String fileName) throws IOException {
     return new TestInputFileBuilder("key", fileName)
       .setModuleBaseDir(dir)
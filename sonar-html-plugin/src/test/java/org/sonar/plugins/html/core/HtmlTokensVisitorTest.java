@@ -0,0 +1,175 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.lex.VueLexer;
+import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlTokens;
+import org.sonar.plugins.html.visitor.HtmlTokens.CpdToken;
+import org.sonar.plugins.html.visitor.HtmlTokens.Highlighting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlTokensVisitorTest {
+
+  @Test
+  void tags() {
+    HtmlTokens tokens = tokens("<a href=\"uri\">text</a>");
+
+    assertThat(images(tokens)).containsExactly("<a", "href", "=\"uri\"", ">", "text", "</a>");
+    assertThat(tokens.getHighlightings()).containsExactly(
+      new Highlighting(1, 0, 1, 2, TypeOfText.KEYWORD),
+      new Highlighting(1, 8, 1, 13, TypeOfText.STRING),
+      new Highlighting(1, 13, 1, 14, TypeOfText.KEYWORD),
+      new Highlighting(1, 18, 1, 22, TypeOfText.KEYWORD));
+  }
+
+  @Test
+  void self_closing_tag() {
+    assertThat(images(tokens("<img src=\"uri\" />"))).containsExactly("<img", "src", "=\"uri\"", "/>");
+  }
+
+  @Test
+  void unquoted_attribute() {
+    assertThat(images(tokens("<a src=uri/a />"))).containsExactly("<a", "src", "=uri/a", "/>");
+  }
+
+  @Test
+  void multiline_comments() {
+    assertComment("<!-- My Comment \n a -->");
+    assertComment("<%-- My Comment \n a %>");
+    assertComment("<%-- My Comment \n a --%>");
+    assertComment("{# My Comment \n a #}");
+  }
+
+  @Test
+  void jsp_comment_ends_at_first_closing_delimiter() {
+    HtmlTokens tokens = tokens("<p><%-- a %> b --%></p>");
+
+    assertThat(images(tokens)).containsExactly("<p>", "b", "-", "-", "%", ">", "</p>");
+    assertThat(tokens.getHighlightings()).contains(new Highlighting(1, 3, 1, 12, TypeOfText.COMMENT));
+  }
+
+  @Test
+  void unterminated_code_comment_ends_with_its_node() {
+    HtmlTokens tokens = tokens("<p>/* a</p><a>*/</a>");
+
+    assertThat(images(tokens)).containsExactly("<p>", "/", "*", "a", "</p>", "<a>", "*", "/", "</a>");
+    assertThat(tokens.getHighlightings()).extracting(Highlighting::typeOfText).doesNotContain(TypeOfText.COMMENT);
+  }
+
+  @Test
+  void code_comments() {
+    HtmlTokens tokens = tokens("<script>\n/* My Comment \n a */ a = 1; // My Comment\n</script>");
+
+    assertThat(images(tokens)).containsExactly("<script>", "a", "=", "1", ";", "</script>");
+    assertThat(tokens.getHighlightings()).contains(
+      new Highlighting(2, 0, 3, 5, TypeOfText.COMMENT),
+      new Highlighting(3, 13, 3, 26, TypeOfText.COMMENT));
+  }
+
+  @Test
+  void expressions_and_directives() {
+    HtmlTokens tokens = tokens("<!DOCTYPE html>\n<%@ page import=\"a.b\" %>\n<p><%= \"a\" %></p>");
+
+    assertThat(images(tokens)).containsExactly("<!DOCTYPE html>", "<%@ page import=\"a.b\" %>", "<p>", "<%= \"a\" %>", "</p>");
+    assertThat(tokens.getHighlightings()).containsExactly(
+      new Highlighting(1, 0, 1, 15, TypeOfText.STRUCTURED_COMMENT),
+      new Highlighting(2, 0, 2, 24, TypeOfText.ANNOTATION),
+      new Highlighting(3, 0, 3, 3, TypeOfText.KEYWORD),
+      new Highlighting(3, 3, 3, 13, TypeOfText.ANNOTATION),
+      new Highlighting(3, 13, 3, 17, TypeOfText.KEYWORD));
+  }
+
+  @Test
+  void lowercase_doctype() {
+    HtmlTokens tokens = tokens("<!doctype html>");
+
+    assertThat(images(tokens)).containsExactly("<", "!", "doctype", "html", ">");
+    assertThat(tokens.getHighlightings()).containsExactly(new Highlighting(1, 14, 1, 15, TypeOfText.KEYWORD));
+  }
+
+  @Test
+  void multiline_token() {
+    assertThat(tokens("<a title='a\r\nb'>").getCpdTokens()).contains(new CpdToken(1, 8, 2, 2, "='a\r\nb'"));
+  }
+
+  @Test
+  void text_outside_of_vue_template() {
+    HtmlSourceCode sourceCode = sourceCode("<template><p>a</p></template>\n<script>b</script>");
+    scan(sourceCode, new VueLexer());
+
+    assertThat(images(sourceCode.getTokens())).containsExactly("<template>", "<p>", "a", "</p>", "</template>", "<script>", "b", "</script>");
+  }
+
+  @Test
+  void html_embedded_in_php_is_tokenized_once() {
+    HtmlTokens tokens = tokens("<?php echo '<p>a</p>'; ?>");
+
+    assertThat(images(tokens)).containsExactly("<", "?", "php", "echo", "'", "<p>", "a", "</p>", "'", ";", "?", ">");
+  }
+
+  @Test
+  void no_tokens_for_other_languages() {
+    HtmlSourceCode sourceCode = new HtmlSourceCode(new TestInputFileBuilder("key", "file.js")
+      .setLanguage("js")
+      .setContents("<p>")
+      .build());
+    scan(sourceCode, new PageLexer());
+
+    assertThat(sourceCode.getTokens()).isNull();
+  }
+
+  private static void assertComment(String comment) {
+    HtmlTokens tokens = tokens(comment);
+
+    assertThat(tokens.getCpdTokens()).isEmpty();
+    assertThat(tokens.getHighlightings()).containsExactly(new Highlighting(1, 0, 2, comment.length() - comment.indexOf('\n') - 1, TypeOfText.COMMENT));
+  }
+
+  private static HtmlTokens tokens(String contents) {
+    HtmlSourceCode sourceCode = sourceCode(contents);
+    scan(sourceCode, new PageLexer());
+    return sourceCode.getTokens();
+  }
+
+  private static List<String> images(HtmlTokens tokens) {
+    return tokens.getCpdTokens().stream().map(CpdToken::image).toList();
+  }
+
+  private static HtmlSourceCode sourceCode(String contents) {
+    return new HtmlSourceCode(new TestInputFileBuilder("key", "file.html")
+      .setLanguage(HtmlConstants.LANGUAGE_KEY)
+      .setContents(contents)
+      .setCharset(StandardCharsets.UTF_8)
+      .build());
+  }
+
+  private static void scan(HtmlSourceCode sourceCode, PageLexer lexer) {
+    new HtmlAstScanner(List.of(new HtmlTokensVisitor())).scan(lexer.parse(new StringReader(sourceCode.contents())), sourceCode);
+  }
+
+}
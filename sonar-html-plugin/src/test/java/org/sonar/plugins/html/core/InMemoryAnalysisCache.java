@@ -0,0 +1,88 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+/**
+ * Analysis cache keeping the entries of the previous analysis and the entries written by the current one in memory.
+ */
+class InMemoryAnalysisCache implements ReadCache, WriteCache {
+
+  private final Map<String, byte[]> previous;
+  private final Map<String, byte[]> next = new HashMap<>();
+  private final Set<String> copiedFromPrevious = new HashSet<>();
+
+  InMemoryAnalysisCache() {
+    this(Map.of());
+  }
+
+  InMemoryAnalysisCache(Map<String, byte[]> previous) {
+    this.previous = previous;
+  }
+
+  @Override
+  public InputStream read(String key) {
+    return new ByteArrayInputStream(previous.get(key));
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return previous.containsKey(key);
+  }
+
+  @Override
+  public void write(String key, InputStream data) {
+    try {
+      write(key, data.readAllBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void write(String key, byte[] data) {
+    if (next.containsKey(key)) {
+      throw new IllegalArgumentException("Cache already contains key " + key);
+    }
+    next.put(key, data);
+  }
+
+  @Override
+  public void copyFromPrevious(String key) {
+    write(key, previous.get(key));
+    copiedFromPrevious.add(key);
+  }
+
+  Map<String, byte[]> written() {
+    return next;
+  }
+
+  Set<String> copiedFromPrevious() {
+    return copiedFromPrevious;
+  }
+
+}
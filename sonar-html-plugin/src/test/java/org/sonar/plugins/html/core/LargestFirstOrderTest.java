@@ -0,0 +1,59 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import com.sonarsource.scanner.engine.sensor.test.fixtures.TestInputFileBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LargestFirstOrderTest {
+
+  @TempDir
+  Path baseDir;
+
+  @Test
+  void largest_files_come_first() throws IOException {
+    InputFile small = inputFile("small.html", 10);
+    InputFile large = inputFile("large.html", 1_000);
+    InputFile medium = inputFile("medium.html", 100);
+
+    assertThat(LargestFirstOrder.sort(List.of(small, large, medium))).containsExactly(large, medium, small);
+  }
+
+  @Test
+  void files_of_same_size_keep_their_order() throws IOException {
+    InputFile first = inputFile("first.html", 10);
+    InputFile second = inputFile("second.html", 10);
+    InputFile missing = new TestInputFileBuilder("key", "missing.html").setModuleBaseDir(baseDir).build();
+    InputFile third = inputFile("third.html", 10);
+
+    assertThat(LargestFirstOrder.sort(List.of(first, second, missing, third))).containsExactly(first, second, third, missing);
+  }
+
+  private InputFile inputFile(String fileName, int size) throws IOException {
+    Files.writeString(baseDir.resolve(fileName), "a".repeat(size));
+    return new TestInputFileBuilder("key", fileName).setModuleBaseDir(baseDir).build();
+  }
+
+}
@@ -25,13 +25,18 @@ import org.junit.jupiter.api.Test;
 import org.sonar.plugins.html.node.Attribute;
 import org.sonar.plugins.html.node.CommentNode;
 import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.AnalysisProfiler;
+import org.sonar.plugins.html.visitor.FileTimeBudget;
+import org.sonar.plugins.html.visitor.FileTimeBudgetExceededException;
 import org.sonar.sslr.channel.CodeReader;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 class PageLexerTest {
@@ -70,6 +75,31 @@ class PageLexerTest {
     }
   }
 
+  @Test
+  void exceeded_time_budget_aborts_lexing() throws InterruptedException {
+    FileTimeBudget budget = FileTimeBudget.start(1);
+    Thread.sleep(5);
+    StringReader reader = new StringReader("<p>text</p>");
+    PageLexer lexer = new PageLexer();
+
+    assertThatThrownBy(() -> lexer.parse(reader, null, AnalysisProfiler.DISABLED, budget))
+      .isInstanceOfSatisfying(FileTimeBudgetExceededException.class, e -> assertThat(e.phase()).isEqualTo("lexing"));
+  }
+
+  @Test
+  void source_is_lexed_without_reader() {
+    String source = "<html>\n<body class=\"a\"><!-- c --><p>text</p><% x %></body>\n</html>";
+    for (boolean stateMachine : new boolean[] {false, true}) {
+      PageLexer lexer = new PageLexer(stateMachine);
+
+      List<Node> nodes = lexer.parse(source, null, AnalysisProfiler.DISABLED, FileTimeBudget.UNLIMITED);
+
+      assertThat(nodes).extracting(Node::getCode)
+        .containsExactlyElementsOf(lexer.parse(new StringReader(source)).stream().map(Node::getCode).toList());
+      assertThat(((TagNode) nodes.get(2)).getAttribute("class")).isEqualTo("a");
+    }
+  }
+
   @Test
   void testRuby() throws FileNotFoundException {
 
@@ -243,6 +273,31 @@ class PageLexerTest {
     assertThat(nodeList).hasSize(3);
   }
 
+  @Test
+  void style_content_is_markup() {
+    List<Node> nodeList = new PageLexer().parse(new StringReader("<style>a{color:<%= c %>}</style>"));
+
+    assertThat(nodeList).extracting(Node::getCode)
+      .containsExactly("<style>", "a{color:", "<%= c %>", "}", "</style>");
+    assertThat(nodeList.get(2)).isInstanceOf(ExpressionNode.class);
+  }
+
+  @Test
+  void script_content_ends_with_closing_tag_followed_by_whitespace() {
+    List<Node> nodeList = new PageLexer().parse(new StringReader("<script>if (a<b) {}</script\n><p>x</p>"));
+
+    assertThat(nodeList).extracting(Node::getCode)
+      .containsExactly("<script>", "if (a<b) {}", "</script\n>", "<p>", "x", "</p>");
+  }
+
+  @Test
+  void title_content_is_markup() {
+    List<Node> nodeList = new PageLexer().parse(new StringReader("<title>a<s:text name=\"title\"/></title>"));
+
+    assertThat(nodeList).extracting(Node::getCode)
+      .containsExactly("<title>", "a", "<s:text name=\"title\"/>", "</title>");
+  }
+
   @Test
   void testComment() {
     String fragment = "<!-- text --><p>aaa</p>";
@@ -0,0 +1,141 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.sonar.plugins.html.node.Attribute;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.AnalysisProfiler;
+import org.sonar.plugins.html.visitor.FileTimeBudget;
+import org.sonar.plugins.html.visitor.FileTimeBudgetExceededException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StateMachineLexerTest {
+
+  @Test
+  void same_nodes_as_channels_on_test_resources() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get("src/test/resources"))) {
+      files = paths.filter(Files::isRegularFile).sorted().toList();
+    }
+    assertThat(files).hasSizeGreaterThan(100);
+
+    for (Path file : files) {
+      // ISO-8859-1 decodes any byte, whatever the actual encoding of the file
+      String source = Files.readString(file, StandardCharsets.ISO_8859_1);
+      assertThat(describe(new PageLexer(true).parse(new StringReader(source))))
+        .as(file.toString())
+        .isEqualTo(describe(new PageLexer(false).parse(new StringReader(source))));
+      assertThat(describe(new VueLexer(true).parse(new StringReader(source))))
+        .as(file.toString())
+        .isEqualTo(describe(new VueLexer(false).parse(new StringReader(source))));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "",
+    "<",
+    "<div",
+    "<a b=\"x",
+    "<!-- unterminated",
+    "{#",
+    "a < b <1 </ x> text",
+    "<script>if (a<b) { x = \"</scr\" + \"ipt>\"; }</SCRIPT ><script>abc",
+    "<style>a{color:<%= c %>}</style><style>b{background:url(<c:url value=\"/x.png\"/>)}</style>",
+    "<div a=\"x\" b='y' c=z d e=\"\" f='' =g  h = \"1\\\"2\" i=\"@Html.Id(\"f\")\">t</div>",
+    "<a\r\n  href=\"x\"\r\tclass=y>\n</a>",
+    "<div <c:out value=\"x\"/> class=\"a\" <%= y %>>",
+    "<input value='<%= \"a\" %>'/> <div x='a'b'>c</div> <img alt=\"it's\" title='it\"s'>",
+    "<!DOCTYPE html PUBLIC \"-//W3C\" \"x\"><!doctype html>",
+    "<?php echo \"?>\"; // ?>\n ?> <?php /* ?> */ $a = '\\'?>'; ?>",
+    "<%@ page x=\"y\" %> <%= a %> <% a <% b %> c %> <%-- <% --%>",
+    "<![CDATA[ x ]]> <![cdata[ y",
+    "<p><li><li></ul></p><br/>{# a {# b #} c #}",
+    "<x:y:z/><:a></:a>é<é/><😀>"
+  })
+  void same_nodes_as_channels(String source) {
+    assertThat(describe(new PageLexer(true).parse(new StringReader(source))))
+      .isEqualTo(describe(new PageLexer(false).parse(new StringReader(source))));
+  }
+
+  @Test
+  void exceeded_time_budget_aborts_lexing() throws InterruptedException {
+    FileTimeBudget budget = FileTimeBudget.start(1);
+    Thread.sleep(5);
+    PageLexer lexer = new PageLexer(true);
+    StringReader reader = new StringReader("<p>text</p>");
+
+    assertThatThrownBy(() -> lexer.parse(reader, null, AnalysisProfiler.DISABLED, budget))
+      .isInstanceOf(FileTimeBudgetExceededException.class);
+  }
+
+  /**
+   * Everything the lexer sets on the nodes, one line per node and attribute.
+   */
+  private static List<String> describe(List<Node> nodes) {
+    Map<Node, Integer> indexes = new IdentityHashMap<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      indexes.put(nodes.get(i), i);
+    }
+    List<String> lines = new ArrayList<>();
+    for (Node node : nodes) {
+      StringBuilder line = new StringBuilder()
+        .append(node.getClass().getSimpleName())
+        .append(' ').append(node.getStartLinePosition()).append(':').append(node.getStartColumnPosition())
+        .append('-').append(node.getEndLinePosition()).append(':').append(node.getEndColumnPosition())
+        .append(" embedded=").append(node.isEmbedded())
+        .append(" code=").append(node.getCode());
+      if (node instanceof TagNode tag) {
+        line.append(" name=").append(tag.getNodeName())
+          .append(" parent=").append(tag.getParent() == null ? null : indexes.get(tag.getParent()))
+          .append(" children=").append(tag.getChildren().size());
+        for (Attribute attribute : tag.getAttributes()) {
+          line.append(" [").append(attribute.getName()).append('=').append(attribute.getValue())
+            .append(" double=").append(attribute.isDoubleQuoted()).append(" single=").append(attribute.isSingleQuoted())
+            .append(' ').append(attribute.getLine()).append(':').append(attribute.getStartColumn()).append(']');
+        }
+      } else if (node instanceof TextNode text) {
+        line.append(" parent=").append(text.getParent() == null ? null : indexes.get(text.getParent()));
+      } else if (node instanceof CommentNode comment) {
+        line.append(" html=").append(comment.isHtml())
+          .append(' ').append(comment.getStartDelimiter()).append(' ').append(comment.getEndDelimiter());
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+}
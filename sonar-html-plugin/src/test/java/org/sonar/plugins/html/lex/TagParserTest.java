@@ -0,0 +1,119 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.html.node.Attribute;
+import org.sonar.plugins.html.node.TagNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TagParserTest {
+
+  @Test
+  void reads_name_and_attributes() {
+    TagNode tag = parse("<input type=text value=\"a \\\"b\\\" c\" title='it\\'s' disabled>");
+
+    assertThat(tag.getNodeName()).isEqualTo("input");
+    assertThat(tag.getAttributes())
+      .extracting(Attribute::getName, Attribute::getValue, Attribute::isDoubleQuoted, Attribute::isSingleQuoted)
+      .containsExactly(
+        tuple("type", "text", false, false),
+        tuple("value", "a \"b\" c", true, false),
+        tuple("title", "it's", false, true),
+        tuple("disabled", "", false, false));
+  }
+
+  @Test
+  void keeps_nested_quotes() {
+    TagNode tag = parse("<div class=\"<c:if test='${x}'>a</c:if>\" id=\"@Html.Id(\"f\")\">");
+
+    assertThat(tag.getAttributes())
+      .extracting(Attribute::getName, Attribute::getValue)
+      .containsExactly(tuple("class", "<c:if test='${x}'>a</c:if>"), tuple("id", "@Html.Id(\"f\")"));
+  }
+
+  @Test
+  void positions_attributes_in_the_file() {
+    TagNode tag = new TagNode();
+    tag.setCode("<a\n  href=\"x\" class=y>");
+    tag.setStartLinePosition(3);
+    tag.setStartColumnPosition(4);
+    TagParser.parse(tag, new NameTable(), TagParserTest::noNestedToken);
+
+    assertThat(tag.getAttributes())
+      .extracting(Attribute::getName, Attribute::getLine, Attribute::getStartColumn)
+      .containsExactly(tuple("href", 4, 2), tuple("class", 4, 11));
+  }
+
+  @Test
+  void adds_nested_tags_as_attributes() {
+    TagNode tag = parse("<div <c:out value=\"x\"/> class=\"a\">");
+
+    assertThat(tag.getAttributes())
+      .extracting(Attribute::getName, Attribute::getValue)
+      .containsExactly(tuple("<c:out value=\"x\"/>", ""), tuple("class", "a"));
+  }
+
+  @Test
+  void reads_attributes_with_the_position_of_the_tag_when_lexed() {
+    TagNode tag = new TagNode();
+    tag.setCode("<a href=x>");
+    tag.setStartLinePosition(2);
+    tag.setStartColumnPosition(3);
+    TagParser.parse(tag, new NameTable(), TagParserTest::noNestedToken);
+    tag.setStartLinePosition(5);
+    tag.setStartColumnPosition(0);
+
+    assertThat(tag.getNodeName()).isEqualTo("a");
+    assertThat(tag.getAttributes())
+      .extracting(Attribute::getName, Attribute::getLine, Attribute::getStartColumn)
+      .containsExactly(tuple("href", 2, 6));
+  }
+
+  @Test
+  void interns_names() {
+    NameTable names = new NameTable();
+    TagNode first = new TagNode();
+    first.setCode("<Div class=a>");
+    TagParser.parse(first, names, TagParserTest::noNestedToken);
+    TagNode second = new TagNode();
+    second.setCode("<Div class=b>");
+    TagParser.parse(second, names, TagParserTest::noNestedToken);
+
+    assertThat(second.getNameSymbol()).isSameAs(first.getNameSymbol());
+    assertThat(second.getLowerCaseNodeName()).isEqualTo("div");
+    assertThat(second.getAttributes().get(0).getNameSymbol()).isSameAs(first.getAttributes().get(0).getNameSymbol());
+  }
+
+  private static TagNode parse(String code) {
+    TagNode tag = new TagNode();
+    tag.setCode(code);
+    tag.setStartLinePosition(1);
+    TagParser.parse(tag, new NameTable(), (tagCode, index) -> {
+      int end = tagCode.toString().indexOf('>', index) + 1;
+      return new TagParser.NestedToken(tagCode.subSequence(index, end).toString(), end);
+    });
+    return tag;
+  }
+
+  private static TagParser.NestedToken noNestedToken(CharSequence code, int index) {
+    throw new IllegalStateException("No nested tag expected");
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.sslr.channel.CodeReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerDispatcherTest {
+
+  private static final TokenizerDispatcher DISPATCHER = new TokenizerDispatcher(List.of(
+    new CommentTokenizer<List<Node>>("<!--", "-->", true),
+    new CommentTokenizer<List<Node>>("{#", "#}", false),
+    new DoctypeTokenizer("<!DOCTYPE", ">"),
+    new DirectiveTokenizer("<%@", "%>"),
+    new ExpressionTokenizer("<%", "%>"),
+    new NormalElementTokenizer(),
+    new TextTokenizer()));
+
+  @ParameterizedTest
+  @CsvSource(delimiter = '|', value = {
+    "<!-- a --> b   | <!-- a -->    | CommentNode",
+    "{# a #} b      | {# a #}       | CommentNode",
+    "<!doctype html>| <!doctype html>| DirectiveNode",
+    "<%@ page %> b  | <%@ page %>   | DirectiveNode",
+    "<%= a %> b     | <%= a %>      | ExpressionNode",
+    "<div> b        | <div>         | TagNode",
+    "<!a> b         | <!a>          | TagNode",
+    "<é> b          | <é>           | TagNode",
+    "< b            | '< b'         | TextNode",
+    "{ b            | '{ b'         | TextNode",
+    "é <b>          | 'é '          | TextNode",
+  })
+  void tries_the_tokenizers_in_order_among_the_candidates(String source, String code, String nodeClass) {
+    List<Node> nodes = new ArrayList<>();
+    assertThat(DISPATCHER.consume(new CodeReader(source), nodes)).isTrue();
+
+    assertThat(nodes).hasSize(1);
+    assertThat(nodes.get(0).getCode()).isEqualTo(code);
+    assertThat(nodes.get(0).getClass().getSimpleName()).isEqualTo(nodeClass);
+  }
+
+}
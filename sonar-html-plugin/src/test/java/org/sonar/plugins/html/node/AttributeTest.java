@@ -65,6 +65,15 @@ class AttributeTest {
     assertThat(attribute.getValue()).isEqualTo("test");
   }
 
+  @Test
+  void value_region() {
+    Attribute attribute = new Attribute("");
+    attribute.setValue("<a href=\"test\">", 9, 13);
+    assertThat(attribute.getValue()).isEqualTo("test");
+    attribute.setValue("<a href=\"\">", 9, 9);
+    assertThat(attribute.getValue()).isEmpty();
+  }
+
   @Test
   void line() {
     Attribute attribute = new Attribute("");
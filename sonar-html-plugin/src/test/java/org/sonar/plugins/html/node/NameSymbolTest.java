@@ -0,0 +1,44 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameSymbolTest {
+
+  @ParameterizedTest
+  @CsvSource({
+    "Div, div, Div, div",
+    "c:Out, c:out, Out, out",
+    "a:b:, a:b:, b, b",
+    ":B, :b, B, b",
+    "a::, a::, a, a",
+    ":, :, :, :",
+    "'', '', '', ''",
+  })
+  void forms(String name, String lowerCaseName, String localName, String lowerCaseLocalName) {
+    NameSymbol symbol = new NameSymbol(name);
+    assertThat(symbol.getName()).isEqualTo(name);
+    assertThat(symbol.getLowerCaseName()).isEqualTo(lowerCaseName);
+    assertThat(symbol.getLocalName()).isEqualTo(localName);
+    assertThat(symbol.getLowerCaseLocalName()).isEqualTo(lowerCaseLocalName);
+  }
+
+}
@@ -16,6 +16,7 @@
  */
 package org.sonar.plugins.html.node;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -55,12 +56,128 @@ class TagNodeTest {
     assertThat(node.hasProperty("name3")).isTrue();
   }
 
+  @Test
+  void property_bindings() {
+    TagNode node = new TagNode();
+    node.getAttributes().add(new Attribute(":[Name5]", "value5"));
+    node.getAttributes().add(new Attribute("v-bind:name6", "value6"));
+    node.getAttributes().add(new Attribute(":name6", "other"));
+    node.getAttributes().add(new Attribute("NAME7", "value7"));
+    node.getAttributes().add(new Attribute("name7", "other"));
+
+    assertThat(node.getPropertyValue("name5")).isEqualTo("value5");
+    assertThat(node.getPropertyValue("[name5]")).isEqualTo("value5");
+    assertThat(node.getPropertyValue("name6")).isEqualTo("value6");
+    assertThat(node.getPropertyValue("NAME6")).isEqualTo("value6");
+    assertThat(node.getAttribute("name7")).isEqualTo("value7");
+    assertThat(node.getPropertyValue("name7")).isEqualTo("value7");
+    assertThat(node.hasProperty("name8")).isFalse();
+
+    node.getAttributes().add(new Attribute("[name8]", "value8"));
+    assertThat(node.getPropertyValue("name8")).isEqualTo("value8");
+    assertThat(node.hasAttribute("[NAME8]")).isTrue();
+  }
+
+  @Test
+  void lookups_ignore_case() {
+    TagNode node = new TagNode();
+    node.getAttributes().add(new Attribute("Data-Value", "value1"));
+    node.getAttributes().add(new Attribute("V-Bind:Title", "value2"));
+    node.getAttributes().add(new Attribute("[ngModel]", "value3"));
+
+    assertThat(node.getAttribute("data-value")).isEqualTo("value1");
+    assertThat(node.getAttribute("DATA-value")).isEqualTo("value1");
+    assertThat(node.getAttribute("v-bind:title")).isEqualTo("value2");
+    assertThat(node.getPropertyValue("TITLE")).isEqualTo("value2");
+    assertThat(node.getPropertyValue("ngmodel")).isEqualTo("value3");
+    assertThat(node.getPropertyValue("NgModel")).isEqualTo("value3");
+    assertThat(node.getAttribute("[NGMODEL]")).isEqualTo("value3");
+    assertThat(node.getAttribute("data-valu")).isNull();
+    assertThat(node.hasProperty("Model")).isFalse();
+  }
+
+  @Test
+  void no_attributes() {
+    TagNode node = new TagNode();
+    assertThat(node.getAttribute("name")).isNull();
+    assertThat(node.getProperty("name")).isNull();
+  }
+
+  @Test
+  void attributes_are_read_on_first_access() {
+    TagNode node = new TagNode();
+    AtomicInteger reads = new AtomicInteger();
+    node.setAttributeReader(attributes -> {
+      reads.incrementAndGet();
+      attributes.add(new Attribute("name", "value"));
+    });
+    assertThat(reads).hasValue(0);
+
+    assertThat(node.getAttribute("name")).isEqualTo("value");
+    assertThat(node.hasProperty("name")).isTrue();
+    assertThat(node.getAttributes()).extracting(Attribute::getName).containsExactly("name");
+    assertThat(reads).hasValue(1);
+  }
+
+  @Test
+  void code_region() {
+    String source = "<p><br/></p>";
+    TagNode br = new TagNode();
+    br.setCode(source, 3, 8);
+    TagNode end = new TagNode();
+    end.setCode(source, 8, 12);
+
+    assertThat(br.hasEnd()).isTrue();
+    assertThat(br.isEndElement()).isFalse();
+    assertThat(end.hasEnd()).isFalse();
+    assertThat(end.isEndElement()).isTrue();
+    assertThat(end.getCode()).isEqualTo("</p>");
+  }
+
+  @Test
+  void element() {
+    TagNode node = new TagNode();
+    assertThat(node.getElement()).isEqualTo(HtmlElement.UNKNOWN);
+    node.setNodeName("TABLE");
+    assertThat(node.getElement()).isEqualTo(HtmlElement.TABLE);
+    node.setNodeName("c:out");
+    assertThat(node.getElement()).isEqualTo(HtmlElement.UNKNOWN);
+    node.setNodeName("my-element");
+    assertThat(node.getElement()).isEqualTo(HtmlElement.UNKNOWN);
+    assertThat(HtmlElement.of("h1")).isEqualTo(HtmlElement.H1);
+    assertThat(HtmlElement.H1.getName()).isEqualTo("h1");
+  }
+
   @Test
   void emptyTagNode() {
     TagNode tagNode = new TagNode();
     assertThat(tagNode.getNodeName()).isNotNull();
     assertThat(tagNode.getLocalName()).isNotNull();
     assertThat(tagNode.getCode()).isNotNull();
+    assertThat(tagNode.getChildren()).isEmpty();
+  }
+
+  @Test
+  void children() {
+    TagNode parent = new TagNode();
+    TagNode first = new TagNode();
+    TagNode second = new TagNode();
+    first.setParent(parent);
+    second.setParent(parent);
+
+    assertThat(parent.getChildren()).containsExactly(first, second);
+    assertThat(first.getParent()).isSameAs(parent);
+    assertThat(first.getChildren()).isEmpty();
+  }
+
+  @Test
+  void children_can_be_added_to_tag_without_children() {
+    TagNode parent = new TagNode();
+    TagNode child = new TagNode();
+
+    parent.getChildren().add(child);
+
+    assertThat(parent.getChildren()).containsExactly(child);
   }
 
   private TagNode createNode() {
@@ -30,4 +30,18 @@ class TextNodeTest {
     assertThat(textNode.toString()).isEmpty();
   }
 
+  @Test
+  void code_region() {
+    String source = "<p> \n </p><p>text</p>";
+    TextNode blank = new TextNode();
+    blank.setCode(source, 3, 6);
+    TextNode text = new TextNode();
+    text.setCode(source, 13, 17);
+
+    assertThat(blank.isBlank()).isTrue();
+    assertThat(text.isBlank()).isFalse();
+    assertThat(text.getCodeSequence()).hasToString("text");
+    assertThat(text.getCode()).isEqualTo("text");
+  }
+
 }
@@ -0,0 +1,91 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisProfilerTest {
+
+  @Test
+  void disabled_profiler_records_nothing() {
+    AnalysisProfiler profiler = AnalysisProfiler.DISABLED;
+    profiler.stopPhase("lex", profiler.start());
+    profiler.visitorMeasure("ComplexityVisitor", "startDocument").add(1_000_000_000L);
+
+    assertThat(profiler.isEnabled()).isFalse();
+    assertThat(profiler.start()).isZero();
+    assertThat(profiler.summary(10)).doesNotContain("lex", "ComplexityVisitor");
+  }
+
+  @Test
+  void summary_ranks_phases_and_visitors() {
+    AnalysisProfiler profiler = AnalysisProfiler.create();
+    long now = System.nanoTime();
+    profiler.stopPhase("lex", now);
+    profiler.stopPhase("scan", now - 5_000_000_000L);
+    profiler.stopPhase("scan", now);
+    profiler.visitorMeasure("PageCountLines", "startDocument").add(0);
+    profiler.visitorMeasure("ComplexityVisitor", "startDocument").add(3_000_000_000L);
+    profiler.visitorMeasure("ComplexityVisitor", "characters").add(0);
+
+    String summary = profiler.summary(10);
+
+    assertThat(summary).contains("scan: 5", "(2 calls)", "Visitors (2 of 2):", "ComplexityVisitor: 3", "startDocument: 3");
+    assertThat(summary.indexOf("scan")).isLessThan(summary.indexOf("lex"));
+    assertThat(summary.indexOf("ComplexityVisitor")).isLessThan(summary.indexOf("PageCountLines"));
+    assertThat(summary.indexOf("startDocument: 3")).isLessThan(summary.indexOf("characters"));
+  }
+
+  @Test
+  void measures_taken_elsewhere_are_added_to_phases() {
+    AnalysisProfiler profiler = AnalysisProfiler.create();
+    profiler.addPhase("read", 2_000_000_000L);
+    profiler.addPhase("read", 1_000_000_000L);
+    AnalysisProfiler.DISABLED.addPhase("read", 1_000_000_000L);
+
+    assertThat(profiler.summary(10)).contains("read: 3000 ms (2 calls)");
+    assertThat(AnalysisProfiler.DISABLED.summary(10)).doesNotContain("read");
+  }
+
+  @Test
+  void visitor_measures_are_resolved_once() {
+    AnalysisProfiler profiler = AnalysisProfiler.create();
+    AnalysisProfiler.Measure startElement = profiler.visitorMeasure("Web:S1 (SomeCheck)", "startElement");
+    profiler.visitorMeasure("Web:S1 (SomeCheck)", "endElement");
+    startElement.add(2_000_000_000L);
+    startElement.add(1_000_000_000L);
+
+    assertThat(profiler.visitorMeasure("Web:S1 (SomeCheck)", "startElement")).isSameAs(startElement);
+    assertThat(profiler.summary(10))
+      .contains("Web:S1 (SomeCheck): 3000 ms", "startElement: 3000 ms (2 calls)")
+      .doesNotContain("endElement");
+  }
+
+  @Test
+  void summary_is_limited_to_the_slowest_visitors() {
+    AnalysisProfiler profiler = AnalysisProfiler.create();
+    profiler.visitorMeasure("PageCountLines", "startDocument").add(0);
+    profiler.visitorMeasure("ComplexityVisitor", "startDocument").add(1_000_000_000L);
+
+    assertThat(profiler.summary(1))
+      .contains("Visitors (1 of 2):", "ComplexityVisitor")
+      .doesNotContain("PageCountLines");
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+class FileTimeBudgetTest {
+
+  @Test
+  void no_budget() {
+    assertThat(FileTimeBudget.start(0)).isSameAs(FileTimeBudget.UNLIMITED);
+    assertThat(FileTimeBudget.start(-1)).isSameAs(FileTimeBudget.UNLIMITED);
+    assertThat(FileTimeBudget.UNLIMITED.isUnlimited()).isTrue();
+    assertThatNoException().isThrownBy(() -> FileTimeBudget.UNLIMITED.check("lexing"));
+  }
+
+  @Test
+  void budget_not_exceeded() {
+    FileTimeBudget budget = FileTimeBudget.start(60_000);
+
+    assertThat(budget.isUnlimited()).isFalse();
+    assertThatNoException().isThrownBy(() -> budget.check("lexing"));
+  }
+
+  @Test
+  void paused_time_is_not_counted() throws InterruptedException {
+    FileTimeBudget budget = FileTimeBudget.start(50);
+    budget.pause();
+    Thread.sleep(100);
+
+    assertThatNoException().isThrownBy(() -> budget.check("waiting"));
+    budget.resume();
+    assertThatNoException().isThrownBy(() -> budget.check("scanning"));
+    Thread.sleep(100);
+    assertThatThrownBy(() -> budget.check("scanning")).isInstanceOf(FileTimeBudgetExceededException.class);
+  }
+
+  @Test
+  void unlimited_budget_ignores_pauses() {
+    FileTimeBudget.UNLIMITED.pause();
+    FileTimeBudget.UNLIMITED.resume();
+
+    assertThat(FileTimeBudget.UNLIMITED.isUnlimited()).isTrue();
+    assertThatNoException().isThrownBy(() -> FileTimeBudget.UNLIMITED.check("lexing"));
+  }
+
+  @Test
+  void budget_exceeded() throws InterruptedException {
+    FileTimeBudget budget = FileTimeBudget.start(1);
+    Thread.sleep(5);
+
+    assertThatThrownBy(() -> budget.check("scanning"))
+      .isInstanceOfSatisfying(FileTimeBudgetExceededException.class, e -> {
+        assertThat(e.phase()).isEqualTo("scanning");
+        assertThat(e.elapsedMillis()).isGreaterThanOrEqualTo(5);
+      })
+      .hasMessageStartingWith("Analysis aborted after ")
+      .hasMessageEndingWith(" ms while scanning, the time budget per file is 1 ms");
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) SonarSource Sàrl
+ * mailto:info AT sonarsource DOT com
+ *
+ * You can redistribute and/or modify this program under the terms of
+ * the Sonar Source-Available License Version 1, as published by SonarSource Sàrl.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HtmlSourceCodeTest {
+
+  @Test
+  void contents_are_read_once() throws IOException {
+    InputFile inputFile = mock(InputFile.class);
+    when(inputFile.contents()).thenReturn("<p>\n</p>");
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    assertThat(sourceCode.contents()).isEqualTo("<p>\n</p>");
+    assertThat(sourceCode.line(2)).isEqualTo("</p>");
+    assertThat(sourceCode.contents()).isEqualTo("<p>\n</p>");
+    verify(inputFile, times(1)).contents();
+  }
+
+  @Test
+  void read_time_is_measured_by_first_read() throws IOException {
+    InputFile inputFile = mock(InputFile.class);
+    when(inputFile.contents()).thenReturn("<p>");
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+    assertThat(sourceCode.readNanos()).isZero();
+
+    sourceCode.contents();
+    long readNanos = sourceCode.readNanos();
+    sourceCode.contents();
+
+    assertThat(readNanos).isPositive();
+    assertThat(sourceCode.readNanos()).isEqualTo(readNanos);
+  }
+
+  @Test
+  void unreadable_contents() throws IOException {
+    InputFile inputFile = mock(InputFile.class);
+    when(inputFile.contents()).thenThrow(new IOException("boom"));
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    assertThatThrownBy(sourceCode::contents)
+      .isInstanceOf(IllegalStateException.class)
+      .hasCauseInstanceOf(IOException.class);
+  }
+
+  @Test
+  void lines() throws IOException {
+    HtmlSourceCode sourceCode = sourceCode("first\nsecond\r\nthird\rfourth\n");
+
+    assertThat(sourceCode.lineCount()).isEqualTo(5);
+    assertThat(sourceCode.line(1)).isEqualTo("first");
+    assertThat(sourceCode.line(2)).isEqualTo("second");
+    assertThat(sourceCode.line(3)).isEqualTo("third");
+    assertThat(sourceCode.line(4)).isEqualTo("fourth");
+    assertThat(sourceCode.line(5)).isEmpty();
+    assertThat(sourceCode.lineStartOffset(2)).isEqualTo(6);
+    assertThat(sourceCode.lineEndOffset(2)).isEqualTo(12);
+  }
+
+  @Test
+  void line_of_offset() throws IOException {
+    HtmlSourceCode sourceCode = sourceCode("ab\r\ncd\n\nef");
+
+    assertThat(sourceCode.lineOf(0)).isEqualTo(1);
+    assertThat(sourceCode.lineOf(2)).isEqualTo(1);
+    assertThat(sourceCode.lineOf(3)).isEqualTo(1);
+    assertThat(sourceCode.lineOf(4)).isEqualTo(2);
+    assertThat(sourceCode.lineOf(7)).isEqualTo(3);
+    assertThat(sourceCode.lineOf(9)).isEqualTo(4);
+  }
+
+  @Test
+  void empty_file_has_one_empty_line() throws IOException {
+    HtmlSourceCode sourceCode = sourceCode("");
+
+    assertThat(sourceCode.lineCount()).isEqualTo(1);
+    assertThat(sourceCode.line(1)).isEmpty();
+  }
+
+  private static HtmlSourceCode sourceCode(String contents) throws IOException {
+    InputFile inputFile = mock(InputFile.class);
+    when(inputFile.contents()).thenReturn(contents);
+    return new HtmlSourceCode(inputFile);
+  }
+
+}